@@ -0,0 +1,105 @@
+package org.example.api;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+
+/**
+ * Concurrency limit for one backend that follows its health (AIMD). A call that fails with a backend
+ * failure or takes longer than {@code latencyTarget} shrinks the limit by 10%; a fast success while the
+ * limit is in use grows it by about one per limit's worth of calls. Calls over the limit fail at once
+ * with {@link RejectedException}.
+ * <p>
+ * Backend failures are those accepted by {@code backendFailure}, by default the same transient I/O that
+ * {@link Retry} retries ({@link Retry#isTransient(Exception)}). Other exceptions, e.g. a {@link
+ * CircuitBreaker.OpenException} or an {@link IllegalArgumentException} for a bad request, errors and
+ * interrupted calls leave the limit alone.
+ */
+public final class AdaptiveLimiter {
+
+  private static final double BACKOFF = 0.9;
+
+  private final String backend;
+  private final int minLimit;
+  private final int maxLimit;
+  private final long latencyTargetNanos;
+  private final Predicate<? super Exception> backendFailure;
+
+  private double limit;
+  private int inFlight;
+
+  public AdaptiveLimiter(String backend, int initialLimit, int minLimit, int maxLimit, Duration latencyTarget) {
+    this(backend, initialLimit, minLimit, maxLimit, latencyTarget, Retry::isTransient);
+  }
+
+  public AdaptiveLimiter(String backend, int initialLimit, int minLimit, int maxLimit, Duration latencyTarget,
+                         Predicate<? super Exception> backendFailure) {
+    if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+      throw new IllegalArgumentException("limits " + minLimit + " <= " + initialLimit + " <= " + maxLimit);
+    }
+    this.backend = backend;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.latencyTargetNanos = latencyTarget.toNanos();
+    this.backendFailure = backendFailure;
+    this.limit = initialLimit;
+  }
+
+  public <T> T call(Callable<? extends T> call) throws Exception {
+    int granted = tryAcquire();
+    if (granted > 0) {
+      throw new RejectedException(RejectedException.Reason.BACKEND_LIMIT, backend, granted);
+    }
+    long start = System.nanoTime();
+    T result;
+    try {
+      result = call.call();
+    } catch (InterruptedException e) {
+      release();
+      throw e;
+    } catch (Exception e) {
+      if (backendFailure.test(e)) {
+        release(System.nanoTime() - start, false);
+      } else {
+        release();
+      }
+      throw e;
+    } catch (Error e) {
+      release();
+      throw e;
+    }
+    release(System.nanoTime() - start, true);
+    return result;
+  }
+
+  public synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  // Returns 0 when admitted, otherwise the limit that was reached
+  private synchronized int tryAcquire() {
+    if (inFlight >= (int) limit) {
+      return (int) limit;
+    }
+    inFlight++;
+    return 0;
+  }
+
+  private synchronized void release() {
+    inFlight--;
+  }
+
+  private synchronized void release(long latencyNanos, boolean success) {
+    boolean saturated = inFlight >= (int) limit / 2;
+    inFlight--;
+    if (!success || latencyNanos > latencyTargetNanos) {
+      limit = Math.max(minLimit, limit * BACKOFF);
+    } else if (saturated) {
+      limit = Math.min(maxLimit, limit + 1 / limit);
+    }
+  }
+}
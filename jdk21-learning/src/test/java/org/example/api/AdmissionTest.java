@@ -0,0 +1,120 @@
+package org.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+public class AdmissionTest {
+
+  /**
+   * A tenant over its limit is rejected at once while other tenants are still admitted
+   */
+  @Test
+  public void test01() throws Exception {
+    TenantLimiter tenants = new TenantLimiter(2);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(2);
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      Future<?> first = executor.submit(() -> tenants.call("alice", () -> {
+        started.countDown();
+        release.await();
+        return null;
+      }));
+      Future<?> second = executor.submit(() -> tenants.call("alice", () -> {
+        started.countDown();
+        release.await();
+        return null;
+      }));
+      started.await();
+
+      RejectedException e = assertThrows(RejectedException.class, () -> tenants.call("alice", () -> "third"));
+      assertEquals(RejectedException.Reason.TENANT_LIMIT, e.getReason());
+      assertEquals("alice", e.getKey());
+      assertEquals("bob", tenants.call("bob", () -> "bob"));
+
+      release.countDown();
+      first.get();
+      second.get();
+    }
+    assertEquals(0, tenants.getTenants());
+  }
+
+  /**
+   * The backend limit shrinks on slow or failed calls and grows back on fast ones
+   */
+  @Test
+  public void test02() throws Exception {
+    AdaptiveLimiter backend = new AdaptiveLimiter("orders", 10, 2, 20, Duration.ofMillis(100));
+
+    backend.call(() -> {
+      Thread.sleep(150);
+      return null;
+    });
+    for (int i = 0; i < 3; i++) {
+      assertThrows(IOException.class, () -> backend.call(() -> {
+        throw new IOException("down");
+      }));
+    }
+    int shrunk = backend.getLimit();
+    assertTrue(shrunk < 10);
+
+    // Fast calls only grow the limit while it is in use
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int round = 0; round < 20; round++) {
+        CountDownLatch go = new CountDownLatch(1);
+        for (int i = 0; i < backend.getLimit(); i++) {
+          executor.submit(() -> backend.call(() -> {
+            go.await();
+            return null;
+          }));
+        }
+        while (backend.getInFlight() < backend.getLimit()) {
+          Thread.onSpinWait();
+        }
+        RejectedException e = assertThrows(RejectedException.class, () -> backend.call(() -> null));
+        assertEquals(RejectedException.Reason.BACKEND_LIMIT, e.getReason());
+        go.countDown();
+        while (backend.getInFlight() > 0) {
+          Thread.onSpinWait();
+        }
+      }
+    }
+    assertTrue(backend.getLimit() > shrunk);
+    assertEquals(0, backend.getInFlight());
+  }
+
+  /**
+   * Only transient backend failures shrink the limit; bad requests and an open breaker do not
+   */
+  @Test
+  public void test03() throws Exception {
+    AdaptiveLimiter backend = new AdaptiveLimiter("orders", 10, 2, 20, Duration.ofSeconds(1));
+    CircuitBreaker breaker = new CircuitBreaker("orders", 1, Duration.ofSeconds(10));
+    Retry retry = new Retry(1, Duration.ZERO, Duration.ZERO, new RetryBudget(0, 0, 1), breaker);
+
+    for (int i = 0; i < 3; i++) {
+      assertThrows(IllegalArgumentException.class, () -> backend.call(() -> {
+        throw new IllegalArgumentException("bad request");
+      }));
+    }
+    assertEquals(10, backend.getLimit());
+
+    assertThrows(IOException.class, () -> backend.call(() -> retry.call(() -> {
+      throw new IOException("down");
+    })));
+    assertEquals(9, backend.getLimit());
+    for (int i = 0; i < 3; i++) {
+      assertThrows(CircuitBreaker.OpenException.class, () -> backend.call(() -> retry.call(() -> null)));
+    }
+    assertEquals(9, backend.getLimit());
+    assertEquals(0, backend.getInFlight());
+  }
+}
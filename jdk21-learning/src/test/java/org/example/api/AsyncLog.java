@@ -0,0 +1,207 @@
+package org.example.api;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous log sink for request threads.
+ * <p>
+ * {@link #log(String, Object)} copies references to the message, its argument, the current thread and
+ * the values of the configured {@link ScopedValue}s (trace id, request context, ...) into a slot of a
+ * preallocated ring buffer and returns. It takes no lock and allocates nothing, so it never blocks or
+ * pins a virtual thread's carrier; when the buffer is full, or the log is closed, the entry is dropped
+ * and counted instead. One background platform thread renders the entries with the {@link Renderer}
+ * and writes them out, so string formatting and the {@link PrintStream} lock stay off the request path.
+ * An entry that fails to render is replaced by an error line; the thread goes on with the next one.
+ * <p>
+ * The background thread stops by swapping the next free sequence for a marker with the same
+ * compare-and-set that producers use to claim slots, so an entry claimed while the log closes is
+ * either still written or counted as dropped, never lost.
+ */
+public final class AsyncLog implements AutoCloseable {
+
+  /**
+   * Formats the prefix of one entry, e.g. thread and captured context; the message and its argument
+   * are appended after it. Runs on the background thread only.
+   */
+  @FunctionalInterface
+  public interface Renderer {
+
+    void render(StringBuilder out, Entry entry);
+  }
+
+  /**
+   * One logged call. Only valid inside {@link Renderer#render}; the slot is reused afterwards.
+   */
+  public static final class Entry {
+
+    private final Object[] captured;
+    private long timeMillis;
+    private Thread thread;
+    private String message;
+    private Object arg;
+    // Sequence number of the entry stored in this slot, published last
+    private volatile long sequence = -1;
+
+    private Entry(int captured) {
+      this.captured = new Object[captured];
+    }
+
+    public long timeMillis() {
+      return timeMillis;
+    }
+
+    public Thread thread() {
+      return thread;
+    }
+
+    /**
+     * Value of the i-th captured scoped value, or {@code null} if it was not bound.
+     */
+    public Object captured(int i) {
+      return captured[i];
+    }
+
+    public String message() {
+      return message;
+    }
+
+    public Object arg() {
+      return arg;
+    }
+  }
+
+  private static final Object NO_ARG = new Object();
+  // Value of head once the background thread has stopped; real sequences are never negative
+  private static final long STOPPED = -1;
+
+  private final Entry[] slots;
+  private final int mask;
+  private final ScopedValue<?>[] captured;
+  private final Renderer renderer;
+  private final PrintStream out;
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final Thread consumer;
+  private volatile boolean closed;
+
+  /**
+   * @param capacity buffered entries, rounded up to a power of two
+   * @param captured scoped values copied with every entry, in {@link Entry#captured(int)} order
+   */
+  public AsyncLog(int capacity, List<ScopedValue<?>> captured, Renderer renderer, PrintStream out) {
+    int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+    this.slots = new Entry[size];
+    for (int i = 0; i < size; i++) {
+      slots[i] = new Entry(captured.size());
+    }
+    this.mask = size - 1;
+    this.captured = captured.toArray(new ScopedValue<?>[0]);
+    this.renderer = renderer;
+    this.out = out;
+    this.consumer = Thread.ofPlatform().name("async-log").daemon().start(this::drain);
+  }
+
+  public void log(String message) {
+    log(message, NO_ARG);
+  }
+
+  /**
+   * Logs {@code message} followed by {@code arg}; {@code arg} is turned into a string on the
+   * background thread.
+   */
+  public void log(String message, Object arg) {
+    if (closed) {
+      dropped.incrementAndGet();
+      return;
+    }
+    long seq;
+    do {
+      seq = head.get();
+      if (seq == STOPPED || seq - tail.get() >= slots.length) {
+        dropped.incrementAndGet();
+        return;
+      }
+    } while (!head.compareAndSet(seq, seq + 1));
+
+    Entry entry = slots[(int) seq & mask];
+    entry.timeMillis = System.currentTimeMillis();
+    entry.thread = Thread.currentThread();
+    for (int i = 0; i < captured.length; i++) {
+      entry.captured[i] = captured[i].orElse(null);
+    }
+    entry.message = message;
+    entry.arg = arg;
+    entry.sequence = seq;
+  }
+
+  /**
+   * Entries dropped so far because the buffer was full or the log was closed.
+   */
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  /**
+   * Writes out everything logged before the call, then stops the background thread. If the caller is
+   * interrupted while waiting, it returns early with the interrupt status set; the background thread
+   * still finishes writing.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    LockSupport.unpark(consumer);
+    try {
+      consumer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void drain() {
+    StringBuilder sb = new StringBuilder(256);
+    long reportedDrops = 0;
+    long next = tail.get();
+    while (true) {
+      boolean stopping = closed;
+      Entry entry = slots[(int) next & mask];
+      if (entry.sequence == next) {
+        sb.setLength(0);
+        try {
+          renderer.render(sb, entry);
+          sb.append(entry.message);
+          if (entry.arg != NO_ARG) {
+            sb.append(entry.arg);
+          }
+        } catch (RuntimeException e) {
+          // A bad renderer or toString() loses this entry, not the thread
+          sb.setLength(0);
+          sb.append("[AsyncLog] failed to render entry: ").append(e);
+        }
+        out.println(sb);
+        // Drop the references before handing the slot back
+        entry.thread = null;
+        entry.message = null;
+        entry.arg = null;
+        Arrays.fill(entry.captured, null);
+        tail.set(++next);
+        continue;
+      }
+      long drops = dropped.get();
+      if (drops != reportedDrops) {
+        out.println("[AsyncLog] dropped " + (drops - reportedDrops) + " entries");
+        reportedDrops = drops;
+      }
+      out.flush();
+      // Fails if a producer claimed a slot after the check of closed; its entry is written first
+      if (stopping && head.compareAndSet(next, STOPPED)) {
+        return;
+      }
+      LockSupport.parkNanos(1_000_000);
+    }
+  }
+}
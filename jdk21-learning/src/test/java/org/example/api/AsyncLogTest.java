@@ -0,0 +1,124 @@
+package org.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+public class AsyncLogTest {
+
+  private static final ScopedValue<String> TRACE_ID = ScopedValue.newInstance();
+
+  /**
+   * Entries from many virtual threads keep the scoped value bound where they were logged
+   */
+  @Test
+  public void test01() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    AsyncLog log = new AsyncLog(1 << 16, List.of(TRACE_ID),
+        (out, entry) -> out.append('[').append(entry.captured(0)).append("] "), new PrintStream(bytes, true));
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int t = 0; t < 8; t++) {
+        String traceId = "trace" + t;
+        executor.submit(() -> ScopedValue.runWhere(TRACE_ID, traceId, () -> {
+          for (int i = 0; i < 1_000; i++) {
+            log.log(traceId + " step ", i);
+          }
+        }));
+      }
+    }
+    log.close();
+
+    List<String> lines = bytes.toString().lines().toList();
+    assertEquals(8_000, lines.size());
+    for (String line : lines) {
+      String traceId = line.substring(1, line.indexOf(']'));
+      assertTrue(line.startsWith("[" + traceId + "] " + traceId + " step "), line);
+    }
+    assertEquals(0, log.getDropped());
+  }
+
+  /**
+   * A full buffer drops entries instead of blocking the caller
+   */
+  @Test
+  public void test02() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    AsyncLog log = new AsyncLog(4, List.of(), (out, entry) -> {
+      try {
+        Thread.sleep(20);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }, new PrintStream(bytes, true));
+    for (int i = 0; i < 100; i++) {
+      log.log("entry ", i);
+    }
+    log.close();
+
+    long written = bytes.toString().lines().filter(line -> line.startsWith("entry ")).count();
+    assertTrue(log.getDropped() > 0);
+    assertEquals(100, written + log.getDropped());
+  }
+
+  /**
+   * A failing renderer costs only its own entry, and entries logged after close are counted as dropped
+   */
+  @Test
+  public void test03() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    AsyncLog log = new AsyncLog(16, List.of(), (out, entry) -> {
+      if (entry.arg().equals(1)) {
+        throw new IllegalStateException("boom");
+      }
+    }, new PrintStream(bytes, true));
+    for (int i = 0; i < 3; i++) {
+      log.log("entry ", i);
+    }
+    log.close();
+    log.log("late");
+    assertEquals(1, log.getDropped());
+
+    assertEquals(List.of("entry 0", "[AsyncLog] failed to render entry: java.lang.IllegalStateException: boom",
+        "entry 2"), bytes.toString().lines().toList());
+  }
+
+  /**
+   * Entries logged while the log closes are either written or counted as dropped, never lost
+   */
+  @Test
+  public void test04() throws Exception {
+    int threads = 8;
+    int perThread = 20_000;
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    AsyncLog log = new AsyncLog(1 << 16, List.of(), (out, entry) -> {
+    }, new PrintStream(bytes, true));
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < perThread; i++) {
+            log.log("entry");
+          }
+        }));
+      }
+      while (bytes.size() == 0) {
+        Thread.onSpinWait();
+      }
+      log.close();
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    }
+
+    long written = bytes.toString().lines().filter("entry"::equals).count();
+    assertEquals((long) threads * perThread, written + log.getDropped());
+  }
+}
@@ -0,0 +1,92 @@
+package org.example.api;
+
+import java.time.Duration;
+
+/**
+ * Fails calls to a backend fast once it is clearly down.
+ * <p>
+ * After {@code failureThreshold} consecutive failures the breaker opens and rejects calls with {@link
+ * OpenException} for {@code openFor}. It then lets a single trial call through (half-open): success
+ * closes it again, failure reopens it for another {@code openFor}.
+ */
+public final class CircuitBreaker {
+
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  /**
+   * Thrown instead of calling a backend whose breaker is open.
+   */
+  public static final class OpenException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private OpenException(String name) {
+      super("Circuit breaker " + name + " is open");
+    }
+  }
+
+  private final String name;
+  private final int failureThreshold;
+  private final long openForNanos;
+
+  private State state = State.CLOSED;
+  private int failures;
+  private long openedAt;
+  private boolean trialRunning;
+
+  public CircuitBreaker(String name, int failureThreshold, Duration openFor) {
+    if (failureThreshold < 1 || openFor.isNegative()) {
+      throw new IllegalArgumentException("failureThreshold=" + failureThreshold + ", openFor=" + openFor);
+    }
+    this.name = name;
+    this.failureThreshold = failureThreshold;
+    this.openForNanos = openFor.toNanos();
+  }
+
+  /**
+   * Asks permission for one call; every granted call must be followed by {@link #onSuccess()},
+   * {@link #onFailure()} or {@link #release()}.
+   */
+  synchronized void acquire() throws OpenException {
+    if (state == State.OPEN) {
+      if (System.nanoTime() - openedAt < openForNanos) {
+        throw new OpenException(name);
+      }
+      state = State.HALF_OPEN;
+    }
+    if (state == State.HALF_OPEN) {
+      if (trialRunning) {
+        throw new OpenException(name);
+      }
+      trialRunning = true;
+    }
+  }
+
+  synchronized void onSuccess() {
+    state = State.CLOSED;
+    failures = 0;
+    trialRunning = false;
+  }
+
+  /**
+   * Ends a granted call without a verdict, e.g. when it was cancelled.
+   */
+  synchronized void release() {
+    trialRunning = false;
+  }
+
+  synchronized void onFailure() {
+    trialRunning = false;
+    if (state == State.HALF_OPEN || ++failures >= failureThreshold) {
+      state = State.OPEN;
+      openedAt = System.nanoTime();
+      failures = 0;
+    }
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+}
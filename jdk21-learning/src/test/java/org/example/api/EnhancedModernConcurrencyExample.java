@@ -3,12 +3,10 @@ package org.example.api;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
-import java.util.UUID;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.StructuredTaskScope;
-import java.util.concurrent.StructuredTaskScope.Subtask;
 import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -16,9 +14,43 @@ import java.util.stream.IntStream;
 public class EnhancedModernConcurrencyExample {
 
   private static final ScopedValue<RequestContext> REQUEST_CONTEXT = ScopedValue.newInstance();
-  private static final ScopedValue<String> TRACE_ID = ScopedValue.newInstance();
+  // 异步日志：捕获当前 Span（跟踪ID）和 REQUEST_CONTEXT
+  private static final AsyncLog LOG = new AsyncLog(1024, List.of(Span.CURRENT, REQUEST_CONTEXT),
+      new RequestLogPrefix<>(RequestContext.class, RequestContext::userId), System.out);
   private static final Duration TIMEOUT = Duration.ofSeconds(5);
 
+  // 每个后端一个重试策略：指数退避 + 完全抖动，重试预算和熔断器在所有请求之间共享
+  private static final Retry USER_RETRY = new Retry(3, Duration.ofMillis(100), Duration.ofSeconds(1),
+      new RetryBudget(0.2, 5, 10), new CircuitBreaker("user", 5, Duration.ofSeconds(10)));
+  private static final Retry ORDER_RETRY = new Retry(3, Duration.ofMillis(100), Duration.ofSeconds(1),
+      new RetryBudget(0.2, 5, 10), new CircuitBreaker("order", 5, Duration.ofSeconds(10)));
+
+  // 准入控制：每个用户（租户）的并发上限，以及随后端延迟自适应调整的后端并发上限，超限立即拒绝
+  private static final TenantLimiter TENANTS = new TenantLimiter(4);
+  private static final AdaptiveLimiter USER_BACKEND = new AdaptiveLimiter("user", 20, 2, 200, Duration.ofMillis(500));
+  private static final AdaptiveLimiter ORDER_BACKEND = new AdaptiveLimiter("order", 20, 2, 200, Duration.ofMillis(500));
+
+  // 数据源只定义一次，每个数据源有自己的超时时间；每次尝试（重试或对冲）都在新的子 Span 中运行
+  private static final FanOut.Source<UserData> USER_DATA = FanOut.source("user", TIMEOUT, () -> {
+    String userId = REQUEST_CONTEXT.get().userId();
+    return USER_BACKEND.call(() -> USER_RETRY.call(Span.inChild(() -> {
+      logOperation("Fetching user data");
+      return fetchUserData(userId);
+    }), attempt -> logOperation("Retrying user data fetch, attempt " + attempt)));
+  });
+  // 订单请求超过其 p95 延迟仍未返回时发送一次对冲请求，先返回者胜出（长尾延迟的效果见 FanOutTest）
+  private static final FanOut.Source<OrderData> ORDER_DATA = FanOut.source("order", TIMEOUT, () -> {
+    String userId = REQUEST_CONTEXT.get().userId();
+    return ORDER_BACKEND.call(() -> ORDER_RETRY.call(Span.inChild(() -> {
+      logOperation("Fetching order data");
+      return fetchOrderData(userId);
+    }), attempt -> logOperation("Retrying order data fetch, attempt " + attempt)));
+  }).hedged(Hedging.atP95());
+  // 记录每个数据源的耗时、排队延迟和结果，以及等待 join 的时间
+  private static final ScopeMetrics METRICS = new ScopeMetrics();
+  private static final FanOut FETCH = FanOut.of(FanOut.Policy.FAIL_FAST, USER_DATA, ORDER_DATA)
+      .instrumented("fetch", METRICS);
+
   record RequestContext(String userId, Instant timestamp) {
 
   }
@@ -31,18 +63,20 @@ public class EnhancedModernConcurrencyExample {
 
   }
 
-  record Response(UserData user, OrderData order, String traceId) {
+  record Response(UserData user, OrderData order, Span span) {
 
   }
 
-  public static void main(String[] args) {
+  public static void main(String[] args) throws InterruptedException {
     ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
     try {
-      // 提交多个请求
-      List<Future<?>> futures = IntStream.range(0, 5)
+      // 提交多个请求：两个用户各 5 个请求，超出每用户并发上限的请求被拒绝
+      List<Future<?>> futures = IntStream.range(0, 10)
           .mapToObj(i -> executor.submit(() -> {
             try {
-              processRequest("user" + i);
+              processRequest("user" + i % 2);
+            } catch (RejectedException e) {
+              System.out.println("Rejected: " + e.getMessage());
             } catch (Exception e) {
               e.printStackTrace();
             }
@@ -57,97 +91,47 @@ public class EnhancedModernConcurrencyExample {
       e.printStackTrace();
     } finally {
       executor.shutdown();
+      // 输出缓冲区中剩余的日志和延迟统计
+      LOG.close();
+      System.out.print(METRICS.report());
     }
   }
 
   public static void processRequest(String userId) throws Exception {
     var context = new RequestContext(userId, Instant.now());
-    var traceId = generateTraceId();
-
-    ScopedValue.where(REQUEST_CONTEXT, context)
-        .where(TRACE_ID, traceId)
-        .run(() -> {
-          try {
-            Response response = fetchDataConcurrently();
-            logResponse(response);
-          } catch (TimeoutException e) {
-            logError(new Exception("Request timed out", e));
-            throw new RuntimeException(e);
-          } catch (Exception e) {
-            logError(e);
-            throw new RuntimeException(e);
-          }
-        });
+    // 新的跟踪：ID 以 long 保存，只在输出日志时才转换为十六进制
+    var span = Span.newTrace();
+
+    // 超过该用户的并发上限时立即拒绝，不再占用虚拟线程和后端资源
+    TENANTS.call(context.userId(), () -> {
+      ScopedValue.where(REQUEST_CONTEXT, context)
+          .where(Span.CURRENT, span)
+          .run(() -> {
+            try {
+              Response response = fetchDataConcurrently();
+              logResponse(response);
+            } catch (ExecutionException e) {
+              if (e.getCause() instanceof TimeoutException) {
+                logError(new Exception("Request timed out", e.getCause()));
+              } else {
+                logError(e);
+              }
+              throw new RuntimeException(e);
+            } catch (Exception e) {
+              logError(e);
+              throw new RuntimeException(e);
+            }
+          });
+      return null;
+    });
   }
 
   private static Response fetchDataConcurrently() throws Exception {
-    try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
-      // Fork tasks
-      Subtask<UserData> userFuture = scope.fork(() -> {
-        logOperation("Fetching user data");
-        return fetchUserDataWithRetry(REQUEST_CONTEXT.get().userId());
-      });
-
-      Subtask<OrderData> orderFuture = scope.fork(() -> {
-        logOperation("Fetching order data");
-        return fetchOrderDataWithRetry(REQUEST_CONTEXT.get().userId());
-      });
-
-      // Wait with timeout
-      scope.joinUntil(Instant.now().plus(TIMEOUT));
-      scope.throwIfFailed();
-
-      return new Response(
-          userFuture.get(),
-          orderFuture.get(),
-          TRACE_ID.get()
-      );
-    }
-  }
-
-  // 带重试机制的数据获取
-  private static UserData fetchUserDataWithRetry(String userId) throws Exception {
-    int maxRetries = 3;
-    int attempt = 0;
-    Exception lastException = null;
-
-    while (attempt < maxRetries) {
-      try {
-        if (attempt > 0) {
-          logOperation("Retrying user data fetch, attempt " + (attempt + 1));
-        }
-        return fetchUserData(userId);
-      } catch (Exception e) {
-        lastException = e;
-        attempt++;
-        if (attempt < maxRetries) {
-          Thread.sleep(100 * attempt); // 指数退避
-        }
-      }
-    }
-    throw new Exception("Failed to fetch user data after " + maxRetries + " attempts", lastException);
-  }
-
-  private static OrderData fetchOrderDataWithRetry(String userId) throws Exception {
-    int maxRetries = 3;
-    int attempt = 0;
-    Exception lastException = null;
-
-    while (attempt < maxRetries) {
-      try {
-        if (attempt > 0) {
-          logOperation("Retrying order data fetch, attempt " + (attempt + 1));
-        }
-        return fetchOrderData(userId);
-      } catch (Exception e) {
-        lastException = e;
-        attempt++;
-        if (attempt < maxRetries) {
-          Thread.sleep(100 * attempt);
-        }
-      }
-    }
-    throw new Exception("Failed to fetch order data after " + maxRetries + " attempts", lastException);
+    return FETCH.run(results -> new Response(
+        results.get(USER_DATA),
+        results.get(ORDER_DATA),
+        Span.current()
+    ));
   }
 
   // 模拟获取用户数据
@@ -162,34 +146,17 @@ public class EnhancedModernConcurrencyExample {
     return new OrderData("order_" + userId, 99.99);
   }
 
-  // 日志记录方法，使用ScopedValues中的上下文
+  // 日志记录方法：只把消息和 ScopedValues 中的上下文放入环形缓冲区，由后台线程格式化并输出
   private static void logOperation(String operation) {
-    System.out.printf("[Thread: %s][Trace: %s][User: %s] %s%n",
-        Thread.currentThread().getName(),
-        TRACE_ID.get(),
-        REQUEST_CONTEXT.get().userId(),
-        operation
-    );
+    LOG.log(operation);
   }
 
   private static void logResponse(Response response) {
-    System.out.printf("[Thread: %s][Trace: %s] Completed processing for user: %s%n",
-        Thread.currentThread().getName(),
-        TRACE_ID.get(),
-        response.user().userId()
-    );
+    LOG.log("Completed processing for user: ", response.user().userId());
   }
 
   private static void logError(Exception e) {
-    System.out.printf("[Thread: %s][Trace: %s][User: %s] Error: %s%n",
-        Thread.currentThread().getName(),
-        TRACE_ID.get(),
-        REQUEST_CONTEXT.get().userId(),
-        e.getMessage()
-    );
+    LOG.log("Error: ", e.getMessage());
   }
 
-  private static String generateTraceId() {
-    return UUID.randomUUID().toString().substring(0, 8);
-  }
 }
@@ -0,0 +1,260 @@
+package org.example.api;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Structured fan-out over a dynamic set of named data sources.
+ * <p>
+ * Every {@link Source} is forked on its own virtual thread inside one {@link StructuredTaskScope}, so
+ * {@link ScopedValue} bindings of the caller are visible to every source. A source with a deadline runs
+ * in a nested scope that interrupts it once the deadline passes and fails it with a {@link
+ * TimeoutException}. A {@linkplain Source#hedged(Hedging) hedged} source may also fork a duplicate attempt
+ * when it runs slower than usual. Sources are defined once and double as typed keys for their results:
+ *
+ * <pre>{@code
+ * static final FanOut.Source<UserData> USER = FanOut.source("user", Duration.ofSeconds(1), () -> ...);
+ * static final FanOut FETCH = FanOut.of(FanOut.Policy.FAIL_FAST, USER, ORDER);
+ *
+ * Response response = FETCH.run(results -> new Response(results.get(USER), results.get(ORDER)));
+ * }</pre>
+ */
+public final class FanOut {
+
+  public enum Policy {
+    /**
+     * The first failing source cancels the others and {@link #run(Function)} throws.
+     */
+    FAIL_FAST,
+    /**
+     * Every source runs to completion or deadline; the assembler sees which ones failed.
+     */
+    BEST_EFFORT
+  }
+
+  /**
+   * A named call; a {@code null} deadline means the source is only bounded by the fan-out itself, a
+   * {@code null} hedging means calls are never duplicated.
+   */
+  public record Source<T>(String name, Duration deadline, Callable<? extends T> call, Hedging hedging) {
+
+    /**
+     * Returns this source with tail-latency hedging; see {@link Hedging}.
+     */
+    public Source<T> hedged(Hedging hedging) {
+      return new Source<>(name, deadline, call, hedging);
+    }
+  }
+
+  private final Policy policy;
+  private final List<Source<?>> sources;
+  private final String name;
+  private final ScopeMetrics metrics;
+
+  private FanOut(Policy policy, List<Source<?>> sources, String name, ScopeMetrics metrics) {
+    this.policy = policy;
+    this.sources = List.copyOf(sources);
+    this.name = name;
+    this.metrics = metrics;
+  }
+
+  public static <T> Source<T> source(String name, Callable<? extends T> call) {
+    return new Source<>(name, null, call, null);
+  }
+
+  public static <T> Source<T> source(String name, Duration deadline, Callable<? extends T> call) {
+    return new Source<>(name, deadline, call, null);
+  }
+
+  public static FanOut of(Policy policy, Source<?>... sources) {
+    return of(policy, List.of(sources));
+  }
+
+  public static FanOut of(Policy policy, List<Source<?>> sources) {
+    return new FanOut(policy, sources, null, null);
+  }
+
+  /**
+   * Returns this fan-out recording every run into {@code metrics} through an {@link InstrumentedScope}
+   * named {@code name}, with one subtask per source name.
+   */
+  public FanOut instrumented(String name, ScopeMetrics metrics) {
+    return new FanOut(policy, sources, name, metrics);
+  }
+
+  /**
+   * Forks every source, waits for them and hands the outcomes to {@code assembler}.
+   *
+   * @throws ExecutionException under {@link Policy#FAIL_FAST}, with the first failure as its cause
+   */
+  public <R> R run(Function<Results, R> assembler) throws InterruptedException, ExecutionException {
+    try (var scope = new Scope(policy);
+         var timed = metrics == null ? null : InstrumentedScope.wrap(name, scope, metrics)) {
+      Map<Source<?>, Subtask<?>> subtasks = new IdentityHashMap<>();
+      for (Source<?> source : sources) {
+        subtasks.put(source, timed == null ? scope.fork(() -> call(source)) : timed.fork(source.name(), () -> call(source)));
+      }
+      if (timed == null) {
+        scope.join();
+      } else {
+        timed.join();
+      }
+      Throwable failure = scope.failure.get();
+      if (failure != null) {
+        throw new ExecutionException(failure);
+      }
+      return assembler.apply(new Results(subtasks));
+    }
+  }
+
+  private static <T> T call(Source<T> source) throws Exception {
+    if (source.hedging() != null) {
+      return hedged(source);
+    }
+    if (source.deadline() == null) {
+      return source.call().call();
+    }
+    try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
+      Subtask<? extends T> subtask = scope.fork(source.call());
+      joinUntil(scope, source, Instant.now().plus(source.deadline()));
+      scope.throwIfFailed(e -> e instanceof Exception ex ? ex : new ExecutionException(e));
+      return subtask.get();
+    }
+  }
+
+  /**
+   * Forks the call, and if it is still running after the hedging delay, forks it once more; the first
+   * attempt to succeed shuts the scope down, which cancels the other.
+   */
+  private static <T> T hedged(Source<T> source) throws Exception {
+    Hedging hedging = source.hedging();
+    Instant deadline = source.deadline() == null ? null : Instant.now().plus(source.deadline());
+    try (var scope = new StructuredTaskScope.ShutdownOnSuccess<T>()) {
+      scope.fork(() -> timed(source.call(), hedging));
+      Duration delay = hedging.delay();
+      Instant hedgeAt = delay == null ? null : Instant.now().plus(delay);
+      if (hedgeAt != null && (deadline == null || hedgeAt.isBefore(deadline))) {
+        try {
+          scope.joinUntil(hedgeAt);
+        } catch (TimeoutException e) {
+          if (hedging.tryHedge()) {
+            scope.fork(() -> timed(source.call(), hedging));
+          }
+        }
+      }
+      if (deadline == null) {
+        scope.join();
+      } else {
+        joinUntil(scope, source, deadline);
+      }
+      return scope.result(e -> e instanceof Exception ex ? ex : new ExecutionException(e));
+    }
+  }
+
+  private static <T> T timed(Callable<? extends T> call, Hedging hedging) throws Exception {
+    long start = System.nanoTime();
+    T result = call.call();
+    hedging.record(System.nanoTime() - start);
+    return result;
+  }
+
+  private static void joinUntil(StructuredTaskScope<?> scope, Source<?> source, Instant deadline)
+      throws InterruptedException, TimeoutException {
+    try {
+      scope.joinUntil(deadline);
+    } catch (TimeoutException e) {
+      throw new TimeoutException(source.name() + " exceeded its deadline of " + source.deadline());
+    }
+  }
+
+  /**
+   * Outcomes of one {@link #run(Function)}, keyed by source.
+   */
+  public static final class Results {
+
+    private final Map<Source<?>, Subtask<?>> subtasks;
+
+    private Results(Map<Source<?>, Subtask<?>> subtasks) {
+      this.subtasks = subtasks;
+    }
+
+    /**
+     * Returns the source's value.
+     *
+     * @throws IllegalStateException if the source failed or did not run
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Source<T> source) {
+      Subtask<?> subtask = subtask(source);
+      return switch (subtask.state()) {
+        case SUCCESS -> (T) subtask.get();
+        case FAILED -> throw new IllegalStateException(source.name() + " failed", subtask.exception());
+        case UNAVAILABLE -> throw new IllegalStateException(source.name() + " did not complete");
+      };
+    }
+
+    /**
+     * Returns the source's value, or {@code fallback} if it failed; for {@link Policy#BEST_EFFORT}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getOrDefault(Source<T> source, T fallback) {
+      Subtask<?> subtask = subtask(source);
+      return subtask.state() == Subtask.State.SUCCESS ? (T) subtask.get() : fallback;
+    }
+
+    public boolean isSuccess(Source<?> source) {
+      return subtask(source).state() == Subtask.State.SUCCESS;
+    }
+
+    /**
+     * Failed sources by name, in no particular order.
+     */
+    public Map<String, Throwable> failures() {
+      Map<String, Throwable> failures = new LinkedHashMap<>();
+      subtasks.forEach((source, subtask) -> {
+        if (subtask.state() == Subtask.State.FAILED) {
+          failures.put(source.name(), subtask.exception());
+        }
+      });
+      return Collections.unmodifiableMap(failures);
+    }
+
+    private Subtask<?> subtask(Source<?> source) {
+      Subtask<?> subtask = subtasks.get(source);
+      if (subtask == null) {
+        throw new IllegalArgumentException("Unknown source " + source.name());
+      }
+      return subtask;
+    }
+  }
+
+  private static final class Scope extends StructuredTaskScope<Object> {
+
+    private final Policy policy;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private Scope(Policy policy) {
+      this.policy = policy;
+    }
+
+    @Override
+    protected void handleComplete(Subtask<?> subtask) {
+      if (policy == Policy.FAIL_FAST && subtask.state() == Subtask.State.FAILED
+          && failure.compareAndSet(null, subtask.exception())) {
+        shutdown();
+      }
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package org.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+public class FanOutTest {
+
+  private static final ScopedValue<String> USER = ScopedValue.newInstance();
+
+  /**
+   * Best effort: sources inherit the caller's scoped values, a slow source is cut off at its deadline
+   * and a failing one is reported while the rest still arrive
+   */
+  @Test
+  public void test01() throws Exception {
+    FanOut.Source<String> name = FanOut.source("name", () -> "name of " + USER.get());
+    FanOut.Source<Integer> slow = FanOut.source("slow", Duration.ofMillis(50), () -> {
+      Thread.sleep(10_000);
+      return 1;
+    });
+    FanOut.Source<Integer> broken = FanOut.source("broken", () -> {
+      throw new IllegalStateException("backend down");
+    });
+    FanOut fanOut = FanOut.of(FanOut.Policy.BEST_EFFORT, name, slow, broken);
+
+    long start = System.nanoTime();
+    FanOut.Results results = ScopedValue.where(USER, "alice").call(() -> fanOut.run(r -> r));
+    assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+
+    assertEquals("name of alice", results.get(name));
+    assertEquals(-1, results.getOrDefault(slow, -1));
+    assertFalse(results.isSuccess(broken));
+    Map<String, Throwable> failures = results.failures();
+    assertInstanceOf(TimeoutException.class, failures.get("slow"));
+    assertInstanceOf(IllegalStateException.class, failures.get("broken"));
+    assertThrows(IllegalStateException.class, () -> results.get(broken));
+  }
+
+  /**
+   * Fail fast: the first failure cancels the remaining sources and surfaces as the cause
+   */
+  @Test
+  public void test02() {
+    AtomicBoolean interrupted = new AtomicBoolean();
+    FanOut.Source<Integer> waiting = FanOut.source("waiting", () -> {
+      try {
+        Thread.sleep(10_000);
+      } catch (InterruptedException e) {
+        interrupted.set(true);
+        throw e;
+      }
+      return 1;
+    });
+    FanOut.Source<Integer> broken = FanOut.source("broken", () -> {
+      throw new IllegalStateException("backend down");
+    });
+
+    ExecutionException e = assertThrows(ExecutionException.class,
+        () -> FanOut.of(FanOut.Policy.FAIL_FAST, waiting, broken).run(r -> r.get(waiting)));
+    assertInstanceOf(IllegalStateException.class, e.getCause());
+    assertTrue(interrupted.get());
+  }
+
+  /**
+   * Hedging: once the source's p95 is known, a straggling attempt is duplicated and the faster copy wins
+   */
+  @Test
+  public void test03() throws Exception {
+    AtomicBoolean straggle = new AtomicBoolean();
+    AtomicBoolean stragglerCancelled = new AtomicBoolean();
+    Hedging hedging = new Hedging(0.95, 0.5, 20);
+    FanOut.Source<String> source = FanOut.source("backend", Duration.ofSeconds(5), () -> {
+      if (!straggle.getAndSet(false)) {
+        Thread.sleep(10);
+        return "fast";
+      }
+      try {
+        Thread.sleep(10_000);
+      } catch (InterruptedException e) {
+        stragglerCancelled.set(true);
+        throw e;
+      }
+      return "straggler";
+    }).hedged(hedging);
+    FanOut fanOut = FanOut.of(FanOut.Policy.FAIL_FAST, source);
+
+    for (int i = 0; i < 30; i++) {
+      assertEquals("fast", fanOut.run(r -> r.get(source)));
+    }
+
+    long hedges = hedging.getHedges();
+    straggle.set(true);
+    long start = System.nanoTime();
+    assertEquals("fast", fanOut.run(r -> r.get(source)));
+    assertTrue(System.nanoTime() - start < Duration.ofSeconds(2).toNanos());
+    assertEquals(hedges + 1, hedging.getHedges());
+    assertTrue(stragglerCancelled.get());
+  }
+
+  /**
+   * Hedging budget: calls made before the latency threshold is known earn no tokens
+   */
+  @Test
+  public void test04() {
+    Hedging hedging = new Hedging(0.95, 0.5, 20);
+    for (int i = 0; i < 100; i++) {
+      assertNull(hedging.delay());
+    }
+    assertFalse(hedging.tryHedge());
+
+    for (int i = 0; i < 20; i++) {
+      hedging.record(Duration.ofMillis(10).toNanos());
+    }
+    assertEquals(Duration.ofMillis(10), hedging.delay());
+    assertFalse(hedging.tryHedge());
+    hedging.delay();
+    assertTrue(hedging.tryHedge());
+    assertFalse(hedging.tryHedge());
+    assertEquals(1, hedging.getHedges());
+  }
+}
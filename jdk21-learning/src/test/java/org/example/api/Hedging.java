@@ -0,0 +1,98 @@
+package org.example.api;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Hedging policy of one {@link FanOut.Source}: once an attempt has been running longer than the
+ * source's observed latency percentile (p95 by default), a duplicate attempt is forked and whichever
+ * finishes first wins; the other is cancelled.
+ * <p>
+ * Latencies of successful attempts are kept in a sliding window of recent samples. No hedge is sent
+ * until the window holds {@code minSamples}. Hedges are paid for from a token bucket that earns {@code
+ * budget} tokens per call, starting once that threshold exists, and spends one per hedge, so hedges stay at about {@code budget} of the
+ * calls even when a backend slows down as a whole. One instance holds the state of one source and is
+ * shared by all its calls.
+ */
+public final class Hedging {
+
+  private static final int WINDOW = 256;
+  private static final int REFRESH_EVERY = 16;
+  private static final double MAX_TOKENS = 10;
+
+  private final double percentile;
+  private final double budget;
+  private final int minSamples;
+
+  private final long[] samples = new long[WINDOW];
+  private long count;
+  private int next;
+  private long thresholdNanos = -1;
+  private double tokens;
+  private long hedges;
+
+  /**
+   * @param percentile latency percentile after which to hedge, e.g. {@code 0.95}
+   * @param budget     hedges per call the bucket allows on average, e.g. {@code 0.1}
+   * @param minSamples successful attempts to observe before the first hedge
+   */
+  public Hedging(double percentile, double budget, int minSamples) {
+    if (percentile <= 0 || percentile >= 1 || budget < 0 || minSamples < 1 || minSamples > WINDOW) {
+      throw new IllegalArgumentException("percentile=" + percentile + ", budget=" + budget + ", minSamples=" + minSamples);
+    }
+    this.percentile = percentile;
+    this.budget = budget;
+    this.minSamples = minSamples;
+  }
+
+  /**
+   * Hedges at p95 with a 10% budget after 20 observed calls.
+   */
+  public static Hedging atP95() {
+    return new Hedging(0.95, 0.1, 20);
+  }
+
+  /**
+   * Called once per source call; returns how long to wait before hedging, or {@code null} while there
+   * are too few samples.
+   */
+  synchronized Duration delay() {
+    if (thresholdNanos < 0) {
+      // Calls that could not have hedged earn nothing, or the first slow calls would spend a full bucket
+      return null;
+    }
+    tokens = Math.min(MAX_TOKENS, tokens + budget);
+    return Duration.ofNanos(thresholdNanos);
+  }
+
+  /**
+   * Takes a token for one hedge; {@code false} once the budget is spent.
+   */
+  synchronized boolean tryHedge() {
+    if (tokens < 1) {
+      return false;
+    }
+    tokens--;
+    hedges++;
+    return true;
+  }
+
+  synchronized void record(long nanos) {
+    samples[next] = nanos;
+    next = (next + 1) % WINDOW;
+    count++;
+    if (count >= minSamples && (thresholdNanos < 0 || count % REFRESH_EVERY == 0)) {
+      int n = (int) Math.min(count, WINDOW);
+      long[] sorted = Arrays.copyOf(samples, n);
+      Arrays.sort(sorted);
+      thresholdNanos = sorted[(int) Math.min(n - 1, Math.ceil(percentile * n) - 1)];
+    }
+  }
+
+  /**
+   * Hedges sent so far.
+   */
+  public synchronized long getHedges() {
+    return hedges;
+  }
+}
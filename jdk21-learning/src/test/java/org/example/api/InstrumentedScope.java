@@ -0,0 +1,114 @@
+package org.example.api;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Wraps a {@link StructuredTaskScope} and records into {@link ScopeMetrics}, tagged by name, how long
+ * each subtask waited to start and ran, whether it succeeded, failed or was cancelled, and how long the
+ * owner waited in {@link #join()}. Policy calls such as {@code throwIfFailed} stay on the wrapped
+ * scope:
+ *
+ * <pre>{@code
+ * try (var scope = new StructuredTaskScope.ShutdownOnFailure();
+ *      var timed = InstrumentedScope.wrap("fetch", scope, METRICS)) {
+ *   Subtask<UserData> user = timed.fork("user", () -> fetchUserData(userId));
+ *   timed.join();
+ *   scope.throwIfFailed();
+ * }
+ * }</pre>
+ * Like the scope itself, the wrapper is used by the owner thread only.
+ */
+public final class InstrumentedScope<T> implements AutoCloseable {
+
+  private final String name;
+  private final StructuredTaskScope<T> scope;
+  private final ScopeMetrics metrics;
+  private final List<Timing> timings = new ArrayList<>();
+
+  private InstrumentedScope(String name, StructuredTaskScope<T> scope, ScopeMetrics metrics) {
+    this.name = name;
+    this.scope = scope;
+    this.metrics = metrics;
+  }
+
+  public static <T> InstrumentedScope<T> wrap(String name, StructuredTaskScope<T> scope, ScopeMetrics metrics) {
+    return new InstrumentedScope<>(name, scope, metrics);
+  }
+
+  public <U extends T> Subtask<U> fork(String subtask, Callable<? extends U> task) {
+    Timing timing = new Timing(metrics.subtask(subtask), System.nanoTime());
+    timings.add(timing);
+    return scope.fork(() -> timing.run(task));
+  }
+
+  public void join() throws InterruptedException {
+    long start = System.nanoTime();
+    try {
+      scope.join();
+    } finally {
+      metrics.joinWait(name).record(System.nanoTime() - start);
+    }
+  }
+
+  public void joinUntil(Instant deadline) throws InterruptedException, TimeoutException {
+    long start = System.nanoTime();
+    try {
+      scope.joinUntil(deadline);
+    } finally {
+      metrics.joinWait(name).record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Closes the wrapped scope, which waits for every subtask thread, then counts subtasks that a
+   * shutdown kept from ever starting as cancelled. Closing the scope again afterwards has no effect.
+   */
+  @Override
+  public void close() {
+    scope.close();
+    if (scope.isShutdown()) {
+      for (Timing timing : timings) {
+        if (!timing.started) {
+          metrics.recordCancellation(timing.subtask, 0, -1);
+        }
+      }
+    }
+    timings.clear();
+  }
+
+  private final class Timing {
+
+    private final ScopeMetrics.Subtask subtask;
+    private final long forkedAt;
+    private volatile boolean started;
+
+    private Timing(ScopeMetrics.Subtask subtask, long forkedAt) {
+      this.subtask = subtask;
+      this.forkedAt = forkedAt;
+    }
+
+    private <U> U run(Callable<? extends U> task) throws Exception {
+      started = true;
+      long start = System.nanoTime();
+      try {
+        U result = task.call();
+        metrics.recordSuccess(subtask, start - forkedAt, System.nanoTime() - start);
+        return result;
+      } catch (Throwable t) {
+        long wall = System.nanoTime() - start;
+        if (t instanceof InterruptedException || scope.isShutdown()) {
+          metrics.recordCancellation(subtask, start - forkedAt, wall);
+        } else {
+          metrics.recordFailure(subtask, start - forkedAt, wall);
+        }
+        throw t;
+      }
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package org.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import org.junit.jupiter.api.Test;
+
+public class InstrumentedScopeTest {
+
+  /**
+   * Percentiles stay within the bucket precision across many orders of magnitude
+   */
+  @Test
+  public void test01() {
+    for (long v = 0; v < 1L << 40; v = v * 3 / 2 + 1) {
+      int index = LatencyHistogram.index(v);
+      long high = LatencyHistogram.highestValue(index);
+      assertTrue(high >= v && high - v <= v / 64, v + " -> " + high);
+      assertEquals(index, LatencyHistogram.index(high));
+    }
+
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int micros = 1; micros <= 100_000; micros++) {
+      histogram.record(micros * 1_000L);
+    }
+    LatencyHistogram.Percentiles p = histogram.percentiles();
+    assertEquals(100_000, p.count());
+    assertWithin(50_000_000, p.p50().toNanos());
+    assertWithin(99_000_000, p.p99().toNanos());
+    assertWithin(99_900_000, p.p999().toNanos());
+    assertEquals(Duration.ofMillis(100), p.max());
+  }
+
+  /**
+   * Subtasks are tagged by name with their outcome; a shutdown counts the others as cancelled
+   */
+  @Test
+  public void test02() throws Exception {
+    ScopeMetrics metrics = new ScopeMetrics();
+    for (int i = 0; i < 3; i++) {
+      try (var scope = new StructuredTaskScope.ShutdownOnFailure();
+           var timed = InstrumentedScope.wrap("fetch", scope, metrics)) {
+        Subtask<String> fast = timed.fork("fast", () -> "ok");
+        timed.fork("slow", () -> {
+          Thread.sleep(10_000);
+          return "late";
+        });
+        timed.fork("broken", () -> {
+          Thread.sleep(20);
+          throw new IllegalStateException("down");
+        });
+        timed.join();
+        assertThrows(ExecutionException.class, scope::throwIfFailed);
+        assertEquals("ok", fast.get());
+      }
+    }
+
+    assertEquals(3, metrics.subtask("fast").getSuccesses());
+    assertEquals(3, metrics.subtask("broken").getFailures());
+    assertEquals(3, metrics.subtask("slow").getCancellations());
+    assertEquals(3, metrics.joinWait("fetch").getCount());
+    assertTrue(metrics.subtask("broken").wallTime().percentile(0.5).toMillis() >= 20);
+    assertTrue(metrics.report().contains("subtask slow ok=0 failed=0 cancelled=3"));
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    assertTrue(actual >= expected && actual - expected <= expected / 64, expected + " vs " + actual);
+  }
+}
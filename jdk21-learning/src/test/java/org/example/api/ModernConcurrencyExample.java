@@ -1,9 +1,7 @@
 package org.example.api;
 
 import java.time.Instant;
-import java.util.UUID;
-import java.util.concurrent.StructuredTaskScope;
-import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.List;
 
 /**
  * 1. Virtual Threads:
@@ -32,7 +30,21 @@ public class ModernConcurrencyExample {
 
   // 定义ScopedValue用于传递上下文
   private static final ScopedValue<RequestContext> REQUEST_CONTEXT = ScopedValue.newInstance();
-  private static final ScopedValue<String> TRACE_ID = ScopedValue.newInstance();
+  // 异步日志：捕获当前 Span（跟踪ID）和 REQUEST_CONTEXT
+  private static final AsyncLog LOG = new AsyncLog(1024, List.of(Span.CURRENT, REQUEST_CONTEXT),
+      new RequestLogPrefix<>(RequestContext.class, RequestContext::userId), System.out);
+
+  // 数据源：每个数据源在各自的虚拟线程上运行
+  private static final FanOut.Source<UserData> USER_DATA = FanOut.source("user", Span.inChild(() -> {
+    logOperation("Fetching user data");
+    return fetchUserData(REQUEST_CONTEXT.get().userId());
+  }));
+  private static final FanOut.Source<OrderData> ORDER_DATA = FanOut.source("order", Span.inChild(() -> {
+    logOperation("Fetching order data");
+    return fetchOrderData(REQUEST_CONTEXT.get().userId());
+  }));
+  // 任一数据源失败时取消其余数据源并抛出异常
+  private static final FanOut FETCH = FanOut.of(FanOut.Policy.FAIL_FAST, USER_DATA, ORDER_DATA);
 
   record RequestContext(String userId, Instant timestamp) {
 
@@ -46,7 +58,7 @@ public class ModernConcurrencyExample {
 
   }
 
-  record Response(UserData user, OrderData order, String traceId) {
+  record Response(UserData user, OrderData order, Span span) {
 
   }
 
@@ -61,6 +73,8 @@ public class ModernConcurrencyExample {
     });
     // 等待虚拟线程完成
     virtualThread.join();
+    // 输出缓冲区中剩余的日志
+    LOG.close();
     // 可以指定超时
     // virtualThread.join(5000); // 等待最多5秒
   }
@@ -68,11 +82,12 @@ public class ModernConcurrencyExample {
   public static void processRequest(String userId) throws Exception {
     // 创建请求上下文
     var context = new RequestContext(userId, Instant.now());
-    var traceId = generateTraceId();
+    // 新的跟踪：ID 以 long 保存，只在输出日志时才转换为十六进制
+    var span = Span.newTrace();
 
     // 使用ScopedValues包装整个请求处理过程
     ScopedValue.where(REQUEST_CONTEXT, context)
-        .where(TRACE_ID, traceId)
+        .where(Span.CURRENT, span)
         .run(() -> {
           try {
             Response response = fetchDataConcurrently();
@@ -85,31 +100,12 @@ public class ModernConcurrencyExample {
   }
 
   private static Response fetchDataConcurrently() throws Exception {
-    // 使用StructuredTaskScope进行并发数据获取
-    try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
-      // Fork任务到虚拟线程
-      Subtask<UserData> userFuture = scope.fork(() -> {
-        logOperation("Fetching user data");
-        return fetchUserData(REQUEST_CONTEXT.get().userId());
-      });
-
-      Subtask<OrderData> orderFuture = scope.fork(() -> {
-        logOperation("Fetching order data");
-        return fetchOrderData(REQUEST_CONTEXT.get().userId());
-      });
-
-      // 等待所有任务完成
-      scope.join();
-      // 如果有任务失败，抛出异常
-      scope.throwIfFailed();
-
-      // 构建响应
-      return new Response(
-          userFuture.get(),
-          orderFuture.get(),
-          TRACE_ID.get()
-      );
-    }
+    // 使用StructuredTaskScope进行并发数据获取，并构建响应
+    return FETCH.run(results -> new Response(
+        results.get(USER_DATA),
+        results.get(ORDER_DATA),
+        Span.current()
+    ));
   }
 
   // 模拟获取用户数据
@@ -124,34 +120,17 @@ public class ModernConcurrencyExample {
     return new OrderData("order_" + userId, 99.99);
   }
 
-  // 日志记录方法，使用ScopedValues中的上下文
+  // 日志记录方法：只把消息和 ScopedValues 中的上下文放入环形缓冲区，由后台线程格式化并输出
   private static void logOperation(String operation) {
-    System.out.printf("[Thread: %s][Trace: %s][User: %s] %s%n",
-        Thread.currentThread().getName(),
-        TRACE_ID.get(),
-        REQUEST_CONTEXT.get().userId(),
-        operation
-    );
+    LOG.log(operation);
   }
 
   private static void logResponse(Response response) {
-    System.out.printf("[Thread: %s][Trace: %s] Completed processing for user: %s%n",
-        Thread.currentThread().getName(),
-        TRACE_ID.get(),
-        response.user().userId()
-    );
+    LOG.log("Completed processing for user: ", response.user().userId());
   }
 
   private static void logError(Exception e) {
-    System.out.printf("[Thread: %s][Trace: %s][User: %s] Error: %s%n",
-        Thread.currentThread().getName(),
-        TRACE_ID.get(),
-        REQUEST_CONTEXT.get().userId(),
-        e.getMessage()
-    );
+    LOG.log("Error: ", e.getMessage());
   }
 
-  private static String generateTraceId() {
-    return UUID.randomUUID().toString().substring(0, 8);
-  }
 }
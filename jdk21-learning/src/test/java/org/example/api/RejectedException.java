@@ -0,0 +1,41 @@
+package org.example.api;
+
+/**
+ * Thrown by admission control instead of queueing work over a concurrency limit, so overload is shed
+ * before it reaches a backend.
+ */
+public final class RejectedException extends Exception {
+
+  private static final long serialVersionUID = 1L;
+
+  public enum Reason {
+    TENANT_LIMIT, BACKEND_LIMIT
+  }
+
+  private final Reason reason;
+  private final String key;
+  private final int limit;
+
+  RejectedException(Reason reason, String key, int limit) {
+    // Rejections are expected under load; skip the stack trace
+    super(reason + " of " + limit + " reached for " + key, null, false, false);
+    this.reason = reason;
+    this.key = key;
+    this.limit = limit;
+  }
+
+  public Reason getReason() {
+    return reason;
+  }
+
+  /**
+   * Tenant or backend whose limit was reached.
+   */
+  public String getKey() {
+    return key;
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+}
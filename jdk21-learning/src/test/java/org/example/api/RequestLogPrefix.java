@@ -0,0 +1,34 @@
+package org.example.api;
+
+import java.util.function.Function;
+
+/**
+ * {@link AsyncLog.Renderer} shared by the concurrency examples: writes the logging thread, the trace and
+ * span ids of the captured {@link Span} and the user of the captured request context, e.g. {@code
+ * [Thread: #21][Trace: ...][Span: ...][User: user1] }. Expects the log to capture {@link Span#CURRENT}
+ * first and the request context second; values that were not bound are left out.
+ */
+final class RequestLogPrefix<C> implements AsyncLog.Renderer {
+
+  private final Class<C> contextType;
+  private final Function<? super C, String> userId;
+
+  RequestLogPrefix(Class<C> contextType, Function<? super C, String> userId) {
+    this.contextType = contextType;
+    this.userId = userId;
+  }
+
+  @Override
+  public void render(StringBuilder out, AsyncLog.Entry entry) {
+    Thread thread = entry.thread();
+    out.append("[Thread: ").append(thread.isVirtual() ? "#" + thread.threadId() : thread.getName()).append(']');
+    if (entry.captured(0) instanceof Span span) {
+      span.appendTraceId(out.append("[Trace: ")).append(']');
+      span.appendSpanId(out.append("[Span: ")).append(']');
+    }
+    if (contextType.isInstance(entry.captured(1))) {
+      out.append("[User: ").append(userId.apply(contextType.cast(entry.captured(1)))).append(']');
+    }
+    out.append(' ');
+  }
+}
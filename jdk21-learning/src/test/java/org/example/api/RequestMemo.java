@@ -0,0 +1,100 @@
+package org.example.api;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * A memo cache that lives exactly as long as one request. It is bound to {@link #CURRENT}, so nested calls
+ * and subtasks forked in a {@code StructuredTaskScope} all see the same instance. Nothing is left behind
+ * in a {@code ThreadLocal} after the binding ends, and each request gets its own instance.
+ * <p>
+ * Values are computed at most once per key. Concurrent subtasks asking for the same key wait for the
+ * first computation instead of starting their own. A computation that fails is not cached, so a later
+ * caller tries again. A derivation must not ask for its own key, or it waits on itself. Waiting is
+ * interruptible: a waiter that is interrupted, e.g. a subtask cancelled by its scope, throws {@link
+ * CancellationException} with the interrupt status set, and the computation goes on for the others.
+ */
+public final class RequestMemo {
+
+  public static final ScopedValue<RequestMemo> CURRENT = ScopedValue.newInstance();
+
+  private final ConcurrentHashMap<Key<?>, CompletableFuture<Object>> values = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a key. Keys compare by identity, so they are normally held in {@code static final} fields.
+   */
+  public static <T> Key<T> key(String name) {
+    return new Key<>(name);
+  }
+
+  /**
+   * Runs {@code op} with a fresh memo bound to {@link #CURRENT}.
+   */
+  public static void runWithin(Runnable op) {
+    ScopedValue.runWhere(CURRENT, new RequestMemo(), op);
+  }
+
+  /**
+   * Returns the value for {@code key} in the current request's memo, computing it on first use. Outside
+   * any request, {@code derivation} simply runs on every call.
+   */
+  public static <T> T get(Key<T> key, Supplier<? extends T> derivation) {
+    return CURRENT.isBound() ? CURRENT.get().computeIfAbsent(key, derivation) : derivation.get();
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T> T computeIfAbsent(Key<T> key, Supplier<? extends T> derivation) {
+    CompletableFuture<Object> value = values.get(key);
+    if (value == null) {
+      CompletableFuture<Object> mine = new CompletableFuture<>();
+      value = values.putIfAbsent(key, mine);
+      if (value == null) {
+        // 在锁外计算，派生函数里可以再读取其它 key
+        try {
+          T computed = derivation.get();
+          mine.complete(computed);
+          return computed;
+        } catch (RuntimeException | Error e) {
+          values.remove(key, mine);
+          mine.completeExceptionally(e);
+          throw e;
+        }
+      }
+    }
+    try {
+      return (T) value.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      CancellationException cancelled = new CancellationException("Interrupted waiting for " + key);
+      cancelled.initCause(e);
+      throw cancelled;
+    } catch (ExecutionException e) {
+      // 只有 RuntimeException 和 Error 会被记录到 future 里
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw (RuntimeException) e.getCause();
+    }
+  }
+
+  public int size() {
+    return values.size();
+  }
+
+  public static final class Key<T> {
+
+    private final String name;
+
+    private Key(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package org.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+public class RequestMemoTest {
+
+  private static final RequestMemo.Key<String> LOOKUP = RequestMemo.key("lookup");
+
+  /**
+   * Forked subtasks share the request's memo and concurrent callers wait for one computation
+   */
+  @Test
+  public void test01() {
+    AtomicInteger computations = new AtomicInteger();
+    RequestMemo.runWithin(() -> {
+      try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
+        Subtask<String> first = scope.fork(() -> RequestMemo.get(LOOKUP, () -> slowLookup(computations)));
+        Subtask<String> second = scope.fork(() -> RequestMemo.get(LOOKUP, () -> slowLookup(computations)));
+        scope.join().throwIfFailed();
+        assertEquals("value-1", first.get());
+        assertEquals("value-1", second.get());
+      } catch (Exception e) {
+        throw new AssertionError(e);
+      }
+      assertEquals("value-1", RequestMemo.get(LOOKUP, () -> slowLookup(computations)));
+    });
+    assertEquals(1, computations.get());
+  }
+
+  /**
+   * Requests do not see each other's values, nothing is cached outside a request and failures are retried
+   */
+  @Test
+  public void test02() {
+    AtomicInteger computations = new AtomicInteger();
+    RequestMemo.runWithin(() -> {
+      assertEquals("value-1", RequestMemo.get(LOOKUP, () -> "value-" + computations.incrementAndGet()));
+      assertEquals("value-1", RequestMemo.get(LOOKUP, () -> "value-" + computations.incrementAndGet()));
+    });
+    RequestMemo.runWithin(
+        () -> assertEquals("value-2", RequestMemo.get(LOOKUP, () -> "value-" + computations.incrementAndGet())));
+    assertFalse(RequestMemo.CURRENT.isBound());
+    assertEquals("value-3", RequestMemo.get(LOOKUP, () -> "value-" + computations.incrementAndGet()));
+    assertEquals("value-4", RequestMemo.get(LOOKUP, () -> "value-" + computations.incrementAndGet()));
+
+    RequestMemo.runWithin(() -> {
+      assertThrows(IllegalStateException.class, () -> RequestMemo.get(LOOKUP, () -> {
+        throw new IllegalStateException("backend down");
+      }));
+      assertEquals(0, RequestMemo.CURRENT.get().size());
+      assertEquals("ok", RequestMemo.get(LOOKUP, () -> "ok"));
+    });
+  }
+
+  /**
+   * A subtask waiting on another subtask's computation can be cancelled by its scope while it waits
+   */
+  @Test
+  public void test03() {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch waiterDone = new CountDownLatch(1);
+    AtomicReference<Throwable> waiterFailure = new AtomicReference<>();
+    RequestMemo.runWithin(() -> {
+      try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
+        // 计算方忽略中断，一直阻塞到测试结束
+        scope.fork(() -> RequestMemo.get(LOOKUP, () -> {
+          started.countDown();
+          awaitUninterruptibly(release);
+          return "value";
+        }));
+        scope.fork(() -> {
+          try {
+            started.await();
+            return RequestMemo.get(LOOKUP, () -> "other");
+          } catch (Throwable t) {
+            waiterFailure.set(t);
+            throw t;
+          } finally {
+            waiterDone.countDown();
+          }
+        });
+        scope.fork(() -> {
+          started.await();
+          Thread.sleep(100);
+          throw new IllegalStateException("sibling failed");
+        });
+        try {
+          scope.join();
+          assertTrue(waiterDone.await(5, TimeUnit.SECONDS));
+        } finally {
+          // close() waits for the computation
+          release.countDown();
+        }
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+      assertInstanceOf(CancellationException.class, waiterFailure.get());
+      assertInstanceOf(InterruptedException.class, waiterFailure.get().getCause());
+    });
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static String slowLookup(AtomicInteger computations) {
+    try {
+      Thread.sleep(50);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return "value-" + computations.incrementAndGet();
+  }
+}
@@ -0,0 +1,97 @@
+package org.example.api;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Retries a call with exponential backoff and full jitter: before attempt {@code n + 1} it sleeps a
+ * random time between zero and {@code min(maxDelay, baseDelay * 2^(n - 1))}, so clients that failed
+ * together do not retry together.
+ * <p>
+ * Retries are paid from a {@link RetryBudget} shared by all requests to the backend, and every attempt
+ * goes through the backend's {@link CircuitBreaker}. Once either says no, the call fails with the last
+ * error (or {@link CircuitBreaker.OpenException}) instead of adding load. Sleeping is fine on virtual
+ * threads and is cut short by interruption, e.g. when a {@link FanOut} deadline passes.
+ * <p>
+ * Only failures accepted by {@code retryable} are retried and count against the breaker; by default
+ * that is transient I/O ({@link #isTransient(Exception)}). Any other exception, e.g. an {@link
+ * IllegalArgumentException} for a bad request, propagates at once and leaves the breaker as it was; so
+ * does an {@link Error}, which also frees a half-open breaker's trial for the next call.
+ */
+public record Retry(int maxAttempts, Duration baseDelay, Duration maxDelay, RetryBudget budget,
+                    CircuitBreaker breaker, Predicate<? super Exception> retryable) {
+
+  public Retry {
+    if (maxAttempts < 1 || baseDelay.isNegative() || maxDelay.compareTo(baseDelay) < 0) {
+      throw new IllegalArgumentException("maxAttempts=" + maxAttempts + ", baseDelay=" + baseDelay + ", maxDelay=" + maxDelay);
+    }
+  }
+
+  public Retry(int maxAttempts, Duration baseDelay, Duration maxDelay, RetryBudget budget, CircuitBreaker breaker) {
+    this(maxAttempts, baseDelay, maxDelay, budget, breaker, Retry::isTransient);
+  }
+
+  /**
+   * The default {@code retryable}: an {@link IOException}, checked or wrapped in an {@link
+   * UncheckedIOException}.
+   */
+  public static boolean isTransient(Exception e) {
+    return e instanceof IOException || e instanceof UncheckedIOException;
+  }
+
+  public <T> T call(Callable<? extends T> call) throws Exception {
+    return call(call, attempt -> {
+    });
+  }
+
+  /**
+   * @param onRetry told the number of each attempt after the first, before it starts
+   */
+  public <T> T call(Callable<? extends T> call, IntConsumer onRetry) throws Exception {
+    budget.deposit();
+    for (int attempt = 1; ; attempt++) {
+      breaker.acquire();
+      try {
+        T result = call.call();
+        breaker.onSuccess();
+        return result;
+      } catch (InterruptedException e) {
+        // Cancelled by the caller, not a verdict on the backend
+        breaker.release();
+        throw e;
+      } catch (Exception e) {
+        if (!retryable.test(e)) {
+          // The call itself is at fault, not the backend
+          breaker.release();
+          throw e;
+        }
+        breaker.onFailure();
+        if (attempt >= maxAttempts || !budget.tryWithdraw()) {
+          throw e;
+        }
+        Thread.sleep(backoff(attempt));
+        onRetry.accept(attempt + 1);
+      } catch (Error e) {
+        // Otherwise a failed half-open trial would keep the breaker rejecting calls for good
+        breaker.release();
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Full-jitter delay before the attempt after {@code attempt}.
+   */
+  Duration backoff(int attempt) {
+    long cap = maxDelay.toNanos();
+    long base = baseDelay.toNanos();
+    int shift = attempt - 1;
+    long ceiling = shift >= Long.numberOfLeadingZeros(base) - 1 ? cap : Math.min(cap, base << shift);
+    return Duration.ofNanos(ceiling == 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1));
+  }
+}
@@ -0,0 +1,51 @@
+package org.example.api;
+
+/**
+ * Token bucket that caps retries across all requests to one backend. Every call deposits {@code ratio}
+ * tokens and every retry withdraws one, so retries stay at about {@code ratio} of the traffic; {@code
+ * minPerSecond} tokens also trickle in over time so a quiet backend can still be retried. When a
+ * backend fails as a whole the bucket drains and requests stop multiplying the load.
+ */
+public final class RetryBudget {
+
+  private final double ratio;
+  private final double minPerSecond;
+  private final double maxTokens;
+  private double tokens;
+  private long refilledAt = System.nanoTime();
+
+  /**
+   * @param ratio        retries allowed per call, e.g. {@code 0.1}
+   * @param minPerSecond retries allowed per second regardless of traffic
+   * @param maxTokens    burst of retries the bucket can save up
+   */
+  public RetryBudget(double ratio, double minPerSecond, double maxTokens) {
+    if (ratio < 0 || minPerSecond < 0 || maxTokens < 1) {
+      throw new IllegalArgumentException("ratio=" + ratio + ", minPerSecond=" + minPerSecond + ", maxTokens=" + maxTokens);
+    }
+    this.ratio = ratio;
+    this.minPerSecond = minPerSecond;
+    this.maxTokens = maxTokens;
+    this.tokens = maxTokens;
+  }
+
+  synchronized void deposit() {
+    refill();
+    tokens = Math.min(maxTokens, tokens + ratio);
+  }
+
+  synchronized boolean tryWithdraw() {
+    refill();
+    if (tokens < 1) {
+      return false;
+    }
+    tokens--;
+    return true;
+  }
+
+  private void refill() {
+    long now = System.nanoTime();
+    tokens = Math.min(maxTokens, tokens + (now - refilledAt) / 1e9 * minPerSecond);
+    refilledAt = now;
+  }
+}
@@ -0,0 +1,130 @@
+package org.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class RetryTest {
+
+  /**
+   * Full jitter: every delay lies between zero and the capped exponential ceiling
+   */
+  @Test
+  public void test01() {
+    Retry retry = new Retry(10, Duration.ofMillis(100), Duration.ofSeconds(1),
+        new RetryBudget(0.1, 0, 10), new CircuitBreaker("test", 100, Duration.ofSeconds(1)));
+    for (int i = 0; i < 1_000; i++) {
+      assertTrue(retry.backoff(1).compareTo(Duration.ofMillis(100)) <= 0);
+      assertTrue(retry.backoff(3).compareTo(Duration.ofMillis(400)) <= 0);
+      assertTrue(retry.backoff(64).compareTo(Duration.ofSeconds(1)) <= 0);
+    }
+  }
+
+  /**
+   * Retries recover from transient failures until the shared budget runs dry
+   */
+  @Test
+  public void test02() throws Exception {
+    RetryBudget budget = new RetryBudget(0, 0, 2);
+    Retry retry = new Retry(3, Duration.ZERO, Duration.ZERO, budget, new CircuitBreaker("test", 100, Duration.ofSeconds(1)));
+    AtomicInteger calls = new AtomicInteger();
+
+    // Fails once, then succeeds: one token spent
+    assertEquals("ok", retry.call(() -> {
+      if (calls.incrementAndGet() == 1) {
+        throw new IOException("transient");
+      }
+      return "ok";
+    }));
+
+    // Always fails: spends the last token, then gives up before maxAttempts
+    calls.set(0);
+    assertThrows(IOException.class, () -> retry.call(() -> {
+      calls.incrementAndGet();
+      throw new IOException("down");
+    }));
+    assertEquals(2, calls.get());
+  }
+
+  /**
+   * The breaker opens after consecutive failures, rejects calls without running them, and closes again
+   * after a successful trial
+   */
+  @Test
+  public void test03() throws Exception {
+    CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofMillis(50));
+    Retry retry = new Retry(1, Duration.ZERO, Duration.ZERO, new RetryBudget(0, 0, 1), breaker);
+    AtomicInteger calls = new AtomicInteger();
+
+    for (int i = 0; i < 3; i++) {
+      assertThrows(IOException.class, () -> retry.call(() -> {
+        calls.incrementAndGet();
+        throw new IOException("down");
+      }));
+    }
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertThrows(CircuitBreaker.OpenException.class, () -> retry.call(calls::incrementAndGet));
+    assertEquals(3, calls.get());
+
+    Thread.sleep(60);
+    assertEquals(4, retry.call(calls::incrementAndGet));
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  /**
+   * Non-transient failures propagate at once, spend no budget and leave the breaker closed; a custom
+   * predicate can make them retryable
+   */
+  @Test
+  public void test04() throws Exception {
+    RetryBudget budget = new RetryBudget(0, 0, 1);
+    CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ofSeconds(1));
+    Retry retry = new Retry(3, Duration.ZERO, Duration.ZERO, budget, breaker);
+    AtomicInteger calls = new AtomicInteger();
+
+    assertThrows(IllegalArgumentException.class, () -> retry.call(() -> {
+      calls.incrementAndGet();
+      throw new IllegalArgumentException("bad request");
+    }));
+    assertEquals(1, calls.get());
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    assertTrue(budget.tryWithdraw());
+
+    Retry lenient = new Retry(2, Duration.ZERO, Duration.ZERO, new RetryBudget(0, 0, 1),
+        new CircuitBreaker("test", 100, Duration.ofSeconds(1)), e -> e instanceof IllegalStateException);
+    calls.set(0);
+    assertEquals("ok", lenient.call(() -> {
+      if (calls.incrementAndGet() == 1) {
+        throw new IllegalStateException("busy");
+      }
+      return "ok";
+    }));
+    assertEquals(2, calls.get());
+  }
+
+  /**
+   * An Error thrown by a half-open trial frees the trial, so the breaker lets the next call through
+   */
+  @Test
+  public void test05() throws Exception {
+    CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ofMillis(50));
+    Retry retry = new Retry(1, Duration.ZERO, Duration.ZERO, new RetryBudget(0, 0, 1), breaker);
+    assertThrows(IOException.class, () -> retry.call(() -> {
+      throw new IOException("down");
+    }));
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+    Thread.sleep(60);
+    assertThrows(AssertionError.class, () -> retry.call(() -> {
+      throw new AssertionError("bug");
+    }));
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    assertEquals("ok", retry.call(() -> "ok"));
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+}
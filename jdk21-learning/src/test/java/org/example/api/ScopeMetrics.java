@@ -0,0 +1,98 @@
+package org.example.api;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process metrics of {@link InstrumentedScope}s: per subtask name, histograms of wall time and of
+ * queueing delay (fork until the subtask starts running) and outcome counters; per scope name, a
+ * histogram of how long the owner waited in {@code join}.
+ */
+public final class ScopeMetrics {
+
+  /**
+   * Metrics of every subtask forked under one name.
+   */
+  public static final class Subtask {
+
+    private final LatencyHistogram wall = new LatencyHistogram();
+    private final LatencyHistogram queue = new LatencyHistogram();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder cancellations = new LongAdder();
+
+    public LatencyHistogram wallTime() {
+      return wall;
+    }
+
+    public LatencyHistogram queueingDelay() {
+      return queue;
+    }
+
+    public long getSuccesses() {
+      return successes.sum();
+    }
+
+    public long getFailures() {
+      return failures.sum();
+    }
+
+    /**
+     * Subtasks interrupted by a scope shutdown, or never started because of one.
+     */
+    public long getCancellations() {
+      return cancellations.sum();
+    }
+
+    @Override
+    public String toString() {
+      return "ok=" + getSuccesses() + " failed=" + getFailures() + " cancelled=" + getCancellations()
+          + " wall[" + wall.percentiles() + "] queue[" + queue.percentiles() + "]";
+    }
+  }
+
+  private final Map<String, Subtask> subtasks = new ConcurrentHashMap<>();
+  private final Map<String, LatencyHistogram> joins = new ConcurrentHashMap<>();
+
+  public Subtask subtask(String name) {
+    return subtasks.computeIfAbsent(name, key -> new Subtask());
+  }
+
+  public LatencyHistogram joinWait(String scope) {
+    return joins.computeIfAbsent(scope, key -> new LatencyHistogram());
+  }
+
+  void recordSuccess(Subtask subtask, long queueNanos, long wallNanos) {
+    subtask.queue.record(queueNanos);
+    subtask.wall.record(wallNanos);
+    subtask.successes.increment();
+  }
+
+  void recordFailure(Subtask subtask, long queueNanos, long wallNanos) {
+    subtask.queue.record(queueNanos);
+    subtask.wall.record(wallNanos);
+    subtask.failures.increment();
+  }
+
+  void recordCancellation(Subtask subtask, long queueNanos, long wallNanos) {
+    if (wallNanos >= 0) {
+      subtask.queue.record(queueNanos);
+      subtask.wall.record(wallNanos);
+    }
+    subtask.cancellations.increment();
+  }
+
+  /**
+   * One line per scope and subtask name, sorted by name.
+   */
+  public String report() {
+    StringBuilder sb = new StringBuilder();
+    new TreeMap<>(joins).forEach((name, histogram) ->
+        sb.append("scope ").append(name).append(" join[").append(histogram.percentiles()).append("]\n"));
+    new TreeMap<>(subtasks).forEach((name, subtask) ->
+        sb.append("subtask ").append(name).append(' ').append(subtask).append('\n'));
+    return sb.toString();
+  }
+}
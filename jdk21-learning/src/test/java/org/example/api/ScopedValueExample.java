@@ -1,5 +1,9 @@
 package org.example.api;
 
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.StructuredTaskScope;
+
 public class ScopedValueExample {
 
   public static void main(String[] args) {
@@ -33,6 +37,9 @@ public class ScopedValueExample {
     // 定义一个作用域值来存储用户上下文
     private static final ScopedValue<UserContext> USER_CONTEXT = ScopedValue.newInstance();
 
+    // 由用户上下文派生的权限，每个请求只查询一次
+    private static final RequestMemo.Key<Set<String>> PERMISSIONS = RequestMemo.key("permissions");
+
     // 模拟处理用户请求
     public void handleUserRequest(String userId, String role) {
       // 创建用户上下文
@@ -50,12 +57,28 @@ public class ScopedValueExample {
 
       // JDK 21 (JEP 446)
       // 在特定作用域内执行业务逻辑
-      ScopedValue.runWhere(USER_CONTEXT, context, () -> {
+      // 同时绑定一个请求级的缓存，请求结束后随作用域一起失效
+      ScopedValue.runWhere(USER_CONTEXT, context, () -> RequestMemo.runWithin(() -> {
         // 执行多个业务操作
         validateUser();
         processBusinessLogic();
         auditLog();
-      });
+      }));
+    }
+
+    private Set<String> permissions() {
+      return RequestMemo.get(PERMISSIONS, () -> loadPermissions(USER_CONTEXT.get()));
+    }
+
+    // 模拟一次耗时的权限查询
+    private static Set<String> loadPermissions(UserContext context) {
+      System.out.println("Loading permissions for user: " + context.userId());
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "ADMIN".equals(context.role()) ? Set.of("read", "write", "admin") : Set.of("read");
     }
 
     private void validateUser() {
@@ -64,7 +87,7 @@ public class ScopedValueExample {
       System.out.println("Validating user: " + context.userId());
 
       // 模拟权限检查
-      if (!"ADMIN".equals(context.role())) {
+      if (!permissions().contains("admin")) {
         throw new SecurityException("Insufficient privileges");
       }
     }
@@ -73,20 +96,31 @@ public class ScopedValueExample {
       UserContext context = USER_CONTEXT.get();
       System.out.println("Processing request for user: " + context.userId());
 
-      // 模拟嵌套方法调用
-      performSubTask();
+      // 模拟嵌套方法调用，子任务继承用户上下文和请求级缓存
+      try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
+        scope.fork(() -> performSubTask("read"));
+        scope.fork(() -> performSubTask("write"));
+        scope.join().throwIfFailed();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException(e.getCause());
+      }
     }
 
-    private void performSubTask() {
+    private String performSubTask(String permission) {
       // 在子方法中仍然可以访问同一作用域的值
       UserContext context = USER_CONTEXT.get();
-      System.out.println("Performing subtask in context of user: " + context.userId());
+      System.out.println("Performing " + permission + " subtask in context of user: " + context.userId()
+          + ", allowed=" + permissions().contains(permission));
+      return permission;
     }
 
     private void auditLog() {
       UserContext context = USER_CONTEXT.get();
       System.out.println("Audit log: User " + context.userId() +
-          " performed operation with role " + context.role());
+          " performed operation with role " + context.role() + " and permissions " + permissions());
     }
   }
 }
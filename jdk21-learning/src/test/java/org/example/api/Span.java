@@ -0,0 +1,99 @@
+package org.example.api;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Trace and span ids kept as primitives: a 128-bit trace id, a 64-bit span id and the parent's span id
+ * ({@code 0} for a root span). Ids come from {@link ThreadLocalRandom}, which is per thread and does not
+ * contend, instead of {@code UUID.randomUUID()} and its {@code SecureRandom}. Hex strings are only built
+ * when an id is rendered, e.g. by a log renderer.
+ * <p>
+ * The current span travels in {@link #CURRENT}, so subtasks forked in a {@code StructuredTaskScope}
+ * inherit it; {@link #inChild(Callable)} runs a subtask in a child span of its own.
+ */
+public record Span(long traceIdHigh, long traceIdLow, long spanId, long parentSpanId) {
+
+  public static final ScopedValue<Span> CURRENT = ScopedValue.newInstance();
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  /**
+   * Starts a new trace with a root span.
+   */
+  public static Span newTrace() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return new Span(random.nextLong(), nonZero(random), nonZero(random), 0);
+  }
+
+  /**
+   * Returns the bound span, or {@code null} outside any trace.
+   */
+  public static Span current() {
+    return CURRENT.orElse(null);
+  }
+
+  /**
+   * Wraps {@code call} so that it runs in a new child span of the span current when it is called, or in
+   * a new trace if there is none.
+   */
+  public static <T> Callable<T> inChild(Callable<? extends T> call) {
+    return () -> {
+      Span parent = CURRENT.orElse(null);
+      Span span = parent == null ? newTrace() : parent.child();
+      return ScopedValue.where(CURRENT, span).call(call::call);
+    };
+  }
+
+  public Span child() {
+    return new Span(traceIdHigh, traceIdLow, nonZero(ThreadLocalRandom.current()), spanId);
+  }
+
+  public boolean isRoot() {
+    return parentSpanId == 0;
+  }
+
+  /**
+   * Appends the trace id as 32 lowercase hex digits.
+   */
+  public StringBuilder appendTraceId(StringBuilder sb) {
+    return appendHex(appendHex(sb, traceIdHigh), traceIdLow);
+  }
+
+  /**
+   * Appends the span id as 16 lowercase hex digits.
+   */
+  public StringBuilder appendSpanId(StringBuilder sb) {
+    return appendHex(sb, spanId);
+  }
+
+  public String traceIdHex() {
+    return appendTraceId(new StringBuilder(32)).toString();
+  }
+
+  public String spanIdHex() {
+    return appendSpanId(new StringBuilder(16)).toString();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(64);
+    appendTraceId(sb).append('/');
+    return appendSpanId(sb).toString();
+  }
+
+  private static StringBuilder appendHex(StringBuilder sb, long value) {
+    for (int shift = 60; shift >= 0; shift -= 4) {
+      sb.append(HEX[(int) (value >>> shift) & 0xF]);
+    }
+    return sb;
+  }
+
+  private static long nonZero(ThreadLocalRandom random) {
+    long id;
+    do {
+      id = random.nextLong();
+    } while (id == 0);
+    return id;
+  }
+}
@@ -0,0 +1,42 @@
+package org.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class SpanTest {
+
+  /**
+   * Ids render as fixed-width lowercase hex only on request
+   */
+  @Test
+  public void test01() {
+    Span span = new Span(0x1L, 0xABCDEFL, 0xFFL, 0);
+    assertEquals("0000000000000001" + "0000000000abcdef", span.traceIdHex());
+    assertEquals("00000000000000ff", span.spanIdHex());
+    assertEquals(span.traceIdHex() + "/" + span.spanIdHex(), span.toString());
+    assertTrue(span.isRoot());
+  }
+
+  /**
+   * Forked sources run in child spans of the request's span and share its trace id
+   */
+  @Test
+  public void test02() throws Exception {
+    FanOut.Source<Span> first = FanOut.source("first", Span.inChild(Span::current));
+    FanOut.Source<Span> second = FanOut.source("second", Span.inChild(Span::current));
+    Span root = Span.newTrace();
+
+    FanOut.Results results = ScopedValue.where(Span.CURRENT, root)
+        .call(() -> FanOut.of(FanOut.Policy.FAIL_FAST, first, second).run(r -> r));
+
+    for (Span child : new Span[] {results.get(first), results.get(second)}) {
+      assertEquals(root.traceIdHex(), child.traceIdHex());
+      assertEquals(root.spanId(), child.parentSpanId());
+      assertNotEquals(root.spanId(), child.spanId());
+    }
+    assertNotEquals(results.get(first).spanId(), results.get(second).spanId());
+  }
+}
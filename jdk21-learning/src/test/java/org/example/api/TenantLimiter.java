@@ -0,0 +1,51 @@
+package org.example.api;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caps the requests one tenant may have in flight, so a single noisy tenant cannot take all virtual
+ * threads and backend capacity. Over the cap a request fails at once with {@link RejectedException}.
+ * A tenant's counter exists only while it has requests in flight.
+ */
+public final class TenantLimiter {
+
+  private final int perTenant;
+  private final Map<String, Integer> inFlight = new ConcurrentHashMap<>();
+
+  public TenantLimiter(int perTenant) {
+    if (perTenant < 1) {
+      throw new IllegalArgumentException("perTenant=" + perTenant);
+    }
+    this.perTenant = perTenant;
+  }
+
+  public <T> T call(String tenant, Callable<? extends T> call) throws Exception {
+    boolean[] admitted = new boolean[1];
+    inFlight.compute(tenant, (key, count) -> {
+      int current = count == null ? 0 : count;
+      admitted[0] = current < perTenant;
+      return admitted[0] ? current + 1 : count;
+    });
+    if (!admitted[0]) {
+      throw new RejectedException(RejectedException.Reason.TENANT_LIMIT, tenant, perTenant);
+    }
+    try {
+      return call.call();
+    } finally {
+      inFlight.computeIfPresent(tenant, (key, count) -> count == 1 ? null : count - 1);
+    }
+  }
+
+  public int getInFlight(String tenant) {
+    return inFlight.getOrDefault(tenant, 0);
+  }
+
+  /**
+   * Tenants with requests in flight.
+   */
+  public int getTenants() {
+    return inFlight.size();
+  }
+}
@@ -0,0 +1,223 @@
+package org.example.language;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Template processor for bulk writes: {@code BATCH."INSERT ... VALUES (\{id}, \{name})"} queues the row
+ * with {@code addBatch} on the statement prepared for that template instead of executing it, and returns
+ * the row's future update count.
+ * <p>
+ * Rows are grouped by the template's fragment list. A group is sent with one {@code executeBatch} round
+ * trip once it holds {@code maxBatchSize} rows, once its oldest row has waited {@code maxDelay}, or on
+ * {@link #flush()}. Rows of one template keep their order; rows of different templates are only ordered
+ * by {@link #flush()}, which sends groups in the order their first pending row arrived. Flush {@code
+ * INSERT}s before queueing {@code UPDATE}s that depend on them.
+ * <p>
+ * Failures complete the affected futures exceptionally. Calls are serialized on this instance because
+ * the connection is not thread-safe, but futures are completed only after the lock is released, so
+ * dependent stages that run inline may queue further rows. Once closed, {@link #process} throws
+ * {@link IllegalStateException}.
+ */
+final class BatchQueryBuilder implements StringTemplate.Processor<CompletableFuture<Integer>, SQLException>,
+    AutoCloseable {
+
+  private final Connection conn;
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final ScheduledExecutorService timer;
+  private final Map<List<String>, QueryBuilder.Shape> shapes = new HashMap<>();
+  // Groups with pending rows, in the order their first row arrived
+  private final Map<List<String>, Batch> pending = new LinkedHashMap<>();
+  private boolean closed;
+
+  BatchQueryBuilder(Connection conn, int maxBatchSize) {
+    this(conn, maxBatchSize, Duration.ZERO);
+  }
+
+  /**
+   * A {@code maxDelay} of zero disables time-based flushing.
+   */
+  BatchQueryBuilder(Connection conn, int maxBatchSize, Duration maxDelay) {
+    if (maxBatchSize < 1 || maxDelay.isNegative()) {
+      throw new IllegalArgumentException("maxBatchSize=" + maxBatchSize + ", maxDelay=" + maxDelay);
+    }
+    this.conn = conn;
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayNanos = maxDelay.toNanos();
+    this.timer = maxDelay.isZero() ? null : Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "batch-flush");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @Override
+  public CompletableFuture<Integer> process(StringTemplate st) throws SQLException {
+    List<String> fragments = st.fragments();
+    CompletableFuture<Integer> result = new CompletableFuture<>();
+    Batch full = null;
+    synchronized (this) {
+      if (closed) {
+        throw new IllegalStateException("BatchQueryBuilder is closed");
+      }
+      Batch batch = pending.get(fragments);
+      if (batch == null) {
+        QueryBuilder.Shape shape = shapes.get(fragments);
+        if (shape == null) {
+          shape = new QueryBuilder.Shape(conn.prepareStatement(String.join("?", fragments)));
+          shapes.put(fragments, shape);
+        }
+        batch = new Batch(shape);
+        pending.put(fragments, batch);
+        if (timer != null) {
+          Batch scheduled = batch;
+          timer.schedule(() -> flushIfPending(fragments, scheduled), maxDelayNanos, TimeUnit.NANOSECONDS);
+        }
+      }
+
+      batch.shape.bind(st.values());
+      batch.shape.ps.addBatch();
+      batch.results.add(result);
+
+      if (batch.results.size() >= maxBatchSize) {
+        pending.remove(fragments);
+        batch.execute();
+        full = batch;
+      }
+    }
+    if (full != null) {
+      full.complete();
+    }
+    return result;
+  }
+
+  /**
+   * Sends every pending group.
+   */
+  public void flush() {
+    List<Batch> sent;
+    synchronized (this) {
+      sent = executePending();
+    }
+    sent.forEach(Batch::complete);
+  }
+
+  /**
+   * Flushes pending rows, then closes the prepared statements; the connection stays open. Closing again
+   * has no effect.
+   */
+  @Override
+  public void close() throws SQLException {
+    List<Batch> sent;
+    SQLException failure = null;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      sent = executePending();
+      if (timer != null) {
+        timer.shutdownNow();
+      }
+      for (QueryBuilder.Shape shape : shapes.values()) {
+        try {
+          shape.ps.close();
+        } catch (SQLException e) {
+          if (failure == null) {
+            failure = e;
+          } else {
+            failure.addSuppressed(e);
+          }
+        }
+      }
+      shapes.clear();
+    }
+    sent.forEach(Batch::complete);
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void flushIfPending(List<String> fragments, Batch batch) {
+    synchronized (this) {
+      // The group may already have been flushed by size and started over with a newer batch
+      if (pending.get(fragments) != batch) {
+        return;
+      }
+      pending.remove(fragments);
+      batch.execute();
+    }
+    batch.complete();
+  }
+
+  // Callers hold the lock and complete the returned batches after releasing it.
+  private List<Batch> executePending() {
+    List<Batch> sent = new ArrayList<>(pending.size());
+    for (Iterator<Batch> it = pending.values().iterator(); it.hasNext(); ) {
+      Batch batch = it.next();
+      it.remove();
+      batch.execute();
+      sent.add(batch);
+    }
+    return sent;
+  }
+
+  private static final class Batch {
+
+    private final QueryBuilder.Shape shape;
+    private final List<CompletableFuture<Integer>> results = new ArrayList<>();
+    private int[] counts;
+    private SQLException failure;
+
+    private Batch(QueryBuilder.Shape shape) {
+      this.shape = shape;
+    }
+
+    // Sends the rows and records the outcome; the futures are left to complete().
+    private void execute() {
+      try {
+        counts = shape.ps.executeBatch();
+      } catch (BatchUpdateException e) {
+        // Drivers that keep going report every row; the others stop at the first failing one
+        counts = e.getUpdateCounts() != null ? e.getUpdateCounts() : new int[0];
+        failure = e;
+      } catch (SQLException e) {
+        counts = new int[0];
+        failure = e;
+      }
+      if (failure != null) {
+        try {
+          shape.ps.clearBatch();
+        } catch (SQLException e) {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+
+    private void complete() {
+      for (int i = 0; i < results.size(); i++) {
+        CompletableFuture<Integer> result = results.get(i);
+        if (i < counts.length && counts[i] != Statement.EXECUTE_FAILED) {
+          result.complete(counts[i]);
+        } else {
+          result.completeExceptionally(failure != null ? failure : new SQLException("Row " + i + " of batch failed"));
+        }
+      }
+    }
+  }
+}
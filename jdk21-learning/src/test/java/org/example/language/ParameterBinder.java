@@ -0,0 +1,143 @@
+package org.example.language;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binds template values to a PreparedStatement through setters resolved once per argument-type
+ * signature, e.g. {@code (Integer, String)}. The setters, with their parameter indexes inserted and
+ * unboxing straight into {@code setInt}, {@code setDouble} and so on, are folded into a single {@link
+ * MethodHandle} per signature, so binding is one call with no per-value type dispatch. Each setter is
+ * guarded by an exact class check, and a value whose type differs from the signature falls back to a
+ * generic setter, so a binder accepts any values of the right count and never has to be looked up again.
+ * <p>
+ * Binders do not depend on a connection and are shared by every processor. {@code Integer}, {@code
+ * Float}, {@code Double}, {@code BigDecimal} and {@code Boolean} map to their typed setters and anything
+ * else to {@code setString} of its string value, as before. {@code null} has changed: it is now bound with
+ * {@code setNull(index, Types.NULL)}, where the former type switch had no {@code case null} and threw
+ * {@link NullPointerException}.
+ */
+final class ParameterBinder {
+
+  private static final Map<List<Class<?>>, ParameterBinder> BINDERS = new ConcurrentHashMap<>();
+  private static final MethodType SETTER = MethodType.methodType(void.class, PreparedStatement.class, Object.class);
+  private static final MethodType BINDER = MethodType.methodType(void.class, PreparedStatement.class, List.class);
+  private static final MethodHandle LIST_GET;
+  private static final MethodHandle IS_EXACTLY;
+  private static final MethodHandle BIND_ANY;
+
+  static {
+    try {
+      LIST_GET = MethodHandles.publicLookup().findVirtual(List.class, "get", MethodType.methodType(Object.class, int.class));
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      IS_EXACTLY = lookup.findStatic(ParameterBinder.class, "isExactly",
+          MethodType.methodType(boolean.class, Class.class, Object.class));
+      BIND_ANY = lookup.findStatic(ParameterBinder.class, "bindAny",
+          MethodType.methodType(void.class, PreparedStatement.class, int.class, Object.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  // (PreparedStatement, List)void running every setter in order
+  private final MethodHandle binder;
+
+  private ParameterBinder(List<Class<?>> signature) {
+    MethodHandle all = MethodHandles.empty(BINDER);
+    for (int i = signature.size() - 1; i >= 0; i--) {
+      // (ps, value) -> isExactly(type, value) ? typed setter : bindAny(ps, i + 1, value)
+      Class<?> type = signature.get(i);
+      MethodHandle test = MethodHandles.dropArguments(MethodHandles.insertArguments(IS_EXACTLY, 0, type), 0,
+          PreparedStatement.class);
+      MethodHandle setter = MethodHandles.guardWithTest(test,
+          MethodHandles.insertArguments(setter(type), 1, i + 1).asType(SETTER),
+          MethodHandles.insertArguments(BIND_ANY, 1, i + 1));
+      // (ps, values) -> setter(ps, values.get(i))
+      MethodHandle get = MethodHandles.insertArguments(LIST_GET, 1, i);
+      all = MethodHandles.foldArguments(all, MethodHandles.filterArguments(setter, 1, get));
+    }
+    this.binder = all;
+  }
+
+  /**
+   * Returns the shared binder for the runtime types of {@code values}.
+   */
+  static ParameterBinder of(List<Object> values) {
+    List<Class<?>> signature = new ArrayList<>(values.size());
+    for (Object value : values) {
+      signature.add(value == null ? Void.class : value.getClass());
+    }
+    return BINDERS.computeIfAbsent(signature, ParameterBinder::new);
+  }
+
+  /**
+   * Sets every value; {@code values} must have as many elements as this binder's signature, but may
+   * differ from it in type.
+   */
+  void bind(PreparedStatement ps, List<Object> values) throws SQLException {
+    try {
+      binder.invokeExact(ps, values);
+    } catch (SQLException | RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new UndeclaredThrowableException(t);
+    }
+  }
+
+  private static boolean isExactly(Class<?> type, Object value) {
+    return (value == null ? Void.class : value.getClass()) == type;
+  }
+
+  // The same mapping as the typed setters, for values that do not match the signature
+  private static void bindAny(PreparedStatement ps, int index, Object value) throws SQLException {
+    switch (value) {
+      case null -> ps.setNull(index, Types.NULL);
+      case Integer i -> ps.setInt(index, i);
+      case Float f -> ps.setFloat(index, f);
+      case Double d -> ps.setDouble(index, d);
+      case BigDecimal bd -> ps.setBigDecimal(index, bd);
+      case Boolean b -> ps.setBoolean(index, b);
+      default -> ps.setString(index, String.valueOf(value));
+    }
+  }
+
+  private static MethodHandle setter(Class<?> type) {
+    MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+    try {
+      if (type == Integer.class) {
+        return lookup.findVirtual(PreparedStatement.class, "setInt", MethodType.methodType(void.class, int.class, int.class));
+      } else if (type == Float.class) {
+        return lookup.findVirtual(PreparedStatement.class, "setFloat", MethodType.methodType(void.class, int.class, float.class));
+      } else if (type == Double.class) {
+        return lookup.findVirtual(PreparedStatement.class, "setDouble", MethodType.methodType(void.class, int.class, double.class));
+      } else if (type == BigDecimal.class) {
+        return lookup.findVirtual(PreparedStatement.class, "setBigDecimal",
+            MethodType.methodType(void.class, int.class, BigDecimal.class));
+      } else if (type == Boolean.class) {
+        return lookup.findVirtual(PreparedStatement.class, "setBoolean", MethodType.methodType(void.class, int.class, boolean.class));
+      } else if (type == Void.class) {
+        // (ps, index, ignored) -> ps.setNull(index, Types.NULL)
+        MethodHandle setNull = lookup.findVirtual(PreparedStatement.class, "setNull",
+            MethodType.methodType(void.class, int.class, int.class));
+        return MethodHandles.dropArguments(MethodHandles.insertArguments(setNull, 2, Types.NULL), 2, Object.class);
+      }
+      // (ps, index, value) -> ps.setString(index, String.valueOf(value))
+      MethodHandle setString = lookup.findVirtual(PreparedStatement.class, "setString",
+          MethodType.methodType(void.class, int.class, String.class));
+      MethodHandle valueOf = lookup.findStatic(String.class, "valueOf", MethodType.methodType(String.class, Object.class));
+      return MethodHandles.filterArguments(setString, 2, valueOf);
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
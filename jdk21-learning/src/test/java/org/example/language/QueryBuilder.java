@@ -0,0 +1,75 @@
+package org.example.language;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.example.language.SqlLog.QueryEvent;
+
+/**
+ * Template processor that turns {@code DB."SELECT ... WHERE ID = \{id}"} into a bound PreparedStatement.
+ * <p>
+ * Caches one PreparedStatement per template shape, keyed by the template's fragment list, so repeated
+ * evaluations skip building the SQL string and preparing the statement, and binds values through a
+ * {@link ParameterBinder} cached per shape. The returned statement is
+ * shared: callers must not close it, and like the connection it must not be used from several threads
+ * at once. Queries are reported to {@link SqlLog}, which is {@link SqlLog#OFF} unless given.
+ */
+record QueryBuilder(Connection conn, SqlLog log, Map<List<String>, Shape> shapes)
+    implements StringTemplate.Processor<PreparedStatement, SQLException> {
+
+  QueryBuilder(Connection conn) {
+    this(conn, SqlLog.OFF);
+  }
+
+  QueryBuilder(Connection conn, SqlLog log) {
+    this(conn, log, new ConcurrentHashMap<>());
+  }
+
+  @Override
+  public PreparedStatement process(StringTemplate st) throws SQLException {
+    // 1. Reuse the PreparedStatement prepared for this template, or replace StringTemplate placeholders
+    // with PreparedStatement placeholders and prepare it on the connection
+    Shape shape = shapes.get(st.fragments());
+    if (shape == null || shape.ps.isClosed()) {
+      shape = new Shape(conn.prepareStatement(String.join("?", st.fragments())));
+      shapes.put(st.fragments(), shape);
+    } else {
+      shape.ps.clearParameters();
+    }
+
+    // 2. Set parameters of the PreparedStatement with the binder cached for this template and value types
+    shape.bind(st.values());
+
+    // 3. Report the query; the event renders nothing unless the sink asks for it
+    if (log.isLoggable()) {
+      log.log(new QueryEvent(st));
+    }
+    return shape.ps;
+  }
+
+  /**
+   * A prepared template together with its binder. The binder is looked up once, for the value types of
+   * the first call; values of one call site usually keep their types, and those that do not are still
+   * bound correctly by the binder's fallback.
+   */
+  static final class Shape {
+
+    final PreparedStatement ps;
+    private ParameterBinder binder;
+
+    Shape(PreparedStatement ps) {
+      this.ps = ps;
+    }
+
+    void bind(List<Object> values) throws SQLException {
+      ParameterBinder b = binder;
+      if (b == null) {
+        binder = b = ParameterBinder.of(values);
+      }
+      b.bind(ps, values);
+    }
+  }
+}
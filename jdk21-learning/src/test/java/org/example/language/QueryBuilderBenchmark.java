@@ -0,0 +1,116 @@
+package org.example.language;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.example.language.SqlLog.QueryEvent;
+
+/**
+ * Compares the cost of binding a query through {@link QueryBuilder} under each {@link SqlLog} mode. The
+ * JDBC objects are no-op proxies, so the numbers are the processor's own overhead. "legacy" replays the
+ * former eager rendering (a params list plus one {@code replaceFirst} per value) without printing. The
+ * "bind" rows compare the former per-value type switch with a cached {@link ParameterBinder}.
+ */
+public class QueryBuilderBenchmark {
+
+  private static final int WARMUP = 5;
+  private static final int ROUNDS = 5;
+  private static final int QUERIES = 1_000_000;
+
+  private static volatile Object sink;
+
+  public static void main(String[] args) throws Exception {
+    Connection conn = noOp(Connection.class);
+    run("off", new QueryBuilder(conn, SqlLog.OFF));
+    run("sampled 1%", new QueryBuilder(conn, SqlLog.sampled(100, event -> sink = event.renderedSql())));
+    run("lazy event", new QueryBuilder(conn, SqlLog.to(event -> sink = event)));
+    run("rendered", new QueryBuilder(conn, SqlLog.to(event -> sink = event.renderedSql())));
+    run("legacy", new QueryBuilder(conn, SqlLog.to(legacy())));
+
+    PreparedStatement ps = noOp(PreparedStatement.class);
+    List<Object> values = List.of("user", 42, 0.5, true, 7, new BigDecimal("1.25"));
+    ParameterBinder binder = ParameterBinder.of(values);
+    bindOnly("switch", () -> switchBind(ps, values));
+    bindOnly("binder", () -> binder.bind(ps, values));
+  }
+
+  private interface Bind {
+
+    void run() throws Exception;
+  }
+
+  private static void bindOnly(String name, Bind bind) throws Exception {
+    double best = Double.MAX_VALUE;
+    for (int round = 0; round < WARMUP + ROUNDS; round++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < QUERIES; i++) {
+        bind.run();
+      }
+      double nsPerBind = (System.nanoTime() - start) / (double) QUERIES;
+      if (round >= WARMUP) {
+        best = Math.min(best, nsPerBind);
+      }
+    }
+    System.out.printf("bind %-7s %8.1f ns/query%n", name, best);
+  }
+
+  // The per-value type switch QueryBuilder used before ParameterBinder
+  private static void switchBind(PreparedStatement ps, List<Object> values) throws Exception {
+    int index = 1;
+    for (Object value : values) {
+      switch (value) {
+        case Integer i -> ps.setInt(index, i);
+        case Float f -> ps.setFloat(index, f);
+        case Double d -> ps.setDouble(index, d);
+        case BigDecimal bd -> ps.setBigDecimal(index, bd);
+        case Boolean b -> ps.setBoolean(index, b);
+        default -> ps.setString(index, String.valueOf(value));
+      }
+      index++;
+    }
+  }
+
+  private static void run(String name, QueryBuilder DB) throws Exception {
+    double best = Double.MAX_VALUE;
+    for (int round = 0; round < WARMUP + ROUNDS; round++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < QUERIES; i++) {
+        String name1 = "user" + (i & 15);
+        sink = DB."UPDATE USER SET NAME = \{name1}, AGE = \{i}, SCORE = \{i * 0.5}, ACTIVE = \{true} WHERE ID = \{i} AND VERSION = \{i - 1}";
+      }
+      double nsPerQuery = (System.nanoTime() - start) / (double) QUERIES;
+      if (round >= WARMUP) {
+        best = Math.min(best, nsPerQuery);
+      }
+    }
+    System.out.printf("%-12s %8.1f ns/query%n", name, best);
+  }
+
+  private static Consumer<QueryEvent> legacy() {
+    return event -> {
+      List<String> params = new ArrayList<>();
+      for (Object value : event.values()) {
+        params.add(value instanceof String ? "String: '" + value + "'" : "Value: " + value);
+      }
+      String actualSql = event.sql();
+      for (String param : params) {
+        actualSql = actualSql.replaceFirst("\\?", param.substring(param.indexOf(":") + 1).trim());
+      }
+      sink = actualSql;
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T noOp(Class<T> type) {
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+      if (method.getReturnType() == PreparedStatement.class) {
+        return noOp(PreparedStatement.class);
+      }
+      return method.getReturnType() == boolean.class ? false : null;
+    });
+  }
+}
@@ -0,0 +1,148 @@
+package org.example.language;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Where {@link QueryBuilder} reports the queries it binds.
+ * <p>
+ * {@link #isLoggable()} is asked once per query before anything is built, so {@link #OFF} costs a single
+ * call. Logged queries are handed over as a {@link QueryEvent} that only holds the template; the SQL
+ * text and the rendered SQL are produced when (and if) the sink asks for them.
+ */
+public interface SqlLog {
+
+  SqlLog OFF = new SqlLog() {
+    @Override
+    public boolean isLoggable() {
+      return false;
+    }
+
+    @Override
+    public void log(QueryEvent event) {
+    }
+  };
+
+  boolean isLoggable();
+
+  void log(QueryEvent event);
+
+  /**
+   * Logs every query to {@code sink}.
+   */
+  static SqlLog to(Consumer<QueryEvent> sink) {
+    return new SqlLog() {
+      @Override
+      public boolean isLoggable() {
+        return true;
+      }
+
+      @Override
+      public void log(QueryEvent event) {
+        sink.accept(event);
+      }
+    };
+  }
+
+  /**
+   * Logs about one query in {@code oneIn} to {@code sink}. The decision uses a thread-local random, so
+   * concurrent callers do not contend on a shared counter.
+   */
+  static SqlLog sampled(int oneIn, Consumer<QueryEvent> sink) {
+    if (oneIn < 1) {
+      throw new IllegalArgumentException("oneIn=" + oneIn);
+    }
+    return new SqlLog() {
+      @Override
+      public boolean isLoggable() {
+        return ThreadLocalRandom.current().nextInt(oneIn) == 0;
+      }
+
+      @Override
+      public void log(QueryEvent event) {
+        sink.accept(event);
+      }
+    };
+  }
+
+  /**
+   * The former behaviour of {@link QueryBuilder}: prints SQL, parameters and the rendered SQL for every
+   * query. Meant for demos, not for production.
+   */
+  static SqlLog stdout() {
+    return to(event -> {
+      System.out.println("===> Executing SQL: " + event.sql());
+      System.out.println("===> Parameters: " + event.parameters());
+      System.out.println("<=== Actual SQL: " + event.renderedSql());
+    });
+  }
+
+  /**
+   * One bound query. Holds only the template; every accessor builds its string on demand in a single
+   * pass.
+   */
+  record QueryEvent(StringTemplate template) {
+
+    public List<String> fragments() {
+      return template.fragments();
+    }
+
+    public List<Object> values() {
+      return template.values();
+    }
+
+    /**
+     * The SQL as prepared, with {@code ?} placeholders.
+     */
+    public String sql() {
+      return String.join("?", template.fragments());
+    }
+
+    /**
+     * Type-tagged values, e.g. {@code Int: 1, String: 'bob'}.
+     */
+    public String parameters() {
+      StringBuilder sb = new StringBuilder();
+      for (Object value : template.values()) {
+        if (!sb.isEmpty()) {
+          sb.append(", ");
+        }
+        sb.append(switch (value) {
+          case Integer i -> "Int";
+          case Float f -> "Float";
+          case Double d -> "Double";
+          case BigDecimal bd -> "BigDecimal";
+          case Boolean b -> "Boolean";
+          case null, default -> "String";
+        }).append(": ");
+        appendLiteral(sb, value);
+      }
+      return sb.toString();
+    }
+
+    /**
+     * The SQL with every placeholder replaced by its value, strings quoted. For reading only; it is not
+     * escaped and must never be executed.
+     */
+    public String renderedSql() {
+      List<String> fragments = template.fragments();
+      List<Object> values = template.values();
+      StringBuilder sb = new StringBuilder(fragments.get(0));
+      for (int i = 0; i < values.size(); i++) {
+        appendLiteral(sb, values.get(i));
+        sb.append(fragments.get(i + 1));
+      }
+      return sb.toString();
+    }
+
+    private static void appendLiteral(StringBuilder sb, Object value) {
+      if (value instanceof Number || value instanceof Boolean) {
+        sb.append(value);
+      } else {
+        sb.append('\'').append(value).append('\'');
+      }
+    }
+  }
+}
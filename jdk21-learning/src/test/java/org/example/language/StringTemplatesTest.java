@@ -2,16 +2,28 @@ package org.example.language;
 
 import static java.lang.StringTemplate.RAW;
 import static java.util.FormatProcessor.FMT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.text.MessageFormat;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
@@ -111,7 +123,7 @@ public class StringTemplatesTest {
   public void test04() throws SQLException {
     final Connection conn = Mockito.mock(Connection.class);
     when(conn.prepareStatement(anyString())).thenReturn(Mockito.mock(PreparedStatement.class));
-    QueryBuilder DB = new QueryBuilder(conn);
+    QueryBuilder DB = new QueryBuilder(conn, SqlLog.stdout());
 
     BigDecimal id = BigDecimal.ONE;
     String username = "username";
@@ -133,64 +145,166 @@ public class StringTemplatesTest {
     ps5.executeUpdate();
   }
 
-  record QueryBuilder(Connection conn)
-      implements StringTemplate.Processor<PreparedStatement, SQLException> {
-
-    public PreparedStatement process(StringTemplate st) throws SQLException {
-      // 1. Replace StringTemplate placeholders with PreparedStatement placeholders
-      String query = String.join("?", st.fragments());
-
-      // 2. Create the PreparedStatement on the connection
-      PreparedStatement ps = conn.prepareStatement(query);
-
-      // 3. Set parameters of the PreparedStatement and build debug info
-      int index = 1;
-      List<String> params = new ArrayList<>();
-
-      for (Object value : st.values()) {
-        // Set parameter
-        switch (value) {
-          case Integer i -> {
-            ps.setInt(index, i);
-            params.add("Int: " + i);
-          }
-          case Float f -> {
-            ps.setFloat(index, f);
-            params.add("Float: " + f);
-          }
-          case Double d -> {
-            ps.setDouble(index, d);
-            params.add("Double: " + d);
-          }
-          case BigDecimal bd -> {
-            ps.setBigDecimal(index, bd);
-            params.add("BigDecimal: " + bd);
-          }
-          case Boolean b -> {
-            ps.setBoolean(index, b);
-            params.add("Boolean: " + b);
-          }
-          default -> {
-            ps.setString(index, String.valueOf(value));
-            params.add("String: '" + value + "'");
-          }
-        }
-        index++;
+  /**
+   * Safely composing and executing database queries
+   * <p>
+   * Repeated evaluations of the same template reuse the cached PreparedStatement
+   */
+  @Test
+  public void test05() throws SQLException {
+    final Connection conn = Mockito.mock(Connection.class);
+    when(conn.prepareStatement(anyString())).thenAnswer(invocation -> Mockito.mock(PreparedStatement.class));
+    QueryBuilder DB = new QueryBuilder(conn);
+
+    PreparedStatement first = null;
+    for (int id = 1; id <= 3; id++) {
+      PreparedStatement ps = DB."SELECT * FROM USER WHERE ID = \{id}";
+      if (first == null) {
+        first = ps;
       }
+      assertSame(first, ps);
+    }
+    PreparedStatement other = DB."DELETE FROM USER WHERE ID = \{1}";
+    assertNotSame(first, other);
 
-      // Print SQL and parameters
-      System.out.println("===> Executing SQL: " + query);
-      System.out.println("===> Parameters: " + String.join(", ", params));
+    verify(conn, times(1)).prepareStatement("SELECT * FROM USER WHERE ID = ?");
+    verify(conn, times(1)).prepareStatement("DELETE FROM USER WHERE ID = ?");
+  }
+
+  /**
+   * Query logging is off by default; a sink receives lazy events that render only on demand
+   */
+  @Test
+  public void test06() throws SQLException {
+    final Connection conn = Mockito.mock(Connection.class);
+    when(conn.prepareStatement(anyString())).thenAnswer(invocation -> Mockito.mock(PreparedStatement.class));
+    List<SqlLog.QueryEvent> events = new ArrayList<>();
+
+    int id = 7;
+    String username = "bob";
+    new QueryBuilder(conn)."SELECT * FROM USER WHERE ID = \{id}";
+    new QueryBuilder(conn, SqlLog.sampled(1, events::add))."SELECT * FROM USER WHERE ID = \{id} AND USERNAME = \{username}";
+
+    assertEquals(1, events.size());
+    SqlLog.QueryEvent event = events.get(0);
+    assertEquals("SELECT * FROM USER WHERE ID = ? AND USERNAME = ?", event.sql());
+    assertEquals("Int: 7, String: 'bob'", event.parameters());
+    assertEquals("SELECT * FROM USER WHERE ID = 7 AND USERNAME = 'bob'", event.renderedSql());
+  }
+
+  /**
+   * Batched writes: rows sharing a template are sent together once the batch is full, or on flush
+   */
+  @Test
+  public void test07() throws Exception {
+    final Connection conn = Mockito.mock(Connection.class);
+    final PreparedStatement insert = Mockito.mock(PreparedStatement.class);
+    final PreparedStatement update = Mockito.mock(PreparedStatement.class);
+    when(conn.prepareStatement("INSERT INTO USER (ID, USERNAME) VALUES (?, ?)")).thenReturn(insert);
+    when(conn.prepareStatement("UPDATE USER SET USERNAME = ? WHERE ID = ?")).thenReturn(update);
+    when(insert.executeBatch()).thenReturn(new int[] {1, 1, 1});
+    when(update.executeBatch()).thenReturn(new int[] {1, 0});
+
+    List<CompletableFuture<Integer>> inserted = new ArrayList<>();
+    List<CompletableFuture<Integer>> updated = new ArrayList<>();
+    try (BatchQueryBuilder BATCH = new BatchQueryBuilder(conn, 3)) {
+      for (int id = 1; id <= 3; id++) {
+        String username = "user" + id;
+        inserted.add(BATCH."INSERT INTO USER (ID, USERNAME) VALUES (\{id}, \{username})");
+      }
+      // The third row filled the batch
+      assertTrue(inserted.stream().allMatch(CompletableFuture::isDone));
 
-      // Optional: Print actual SQL with replaced parameters
-      String actualSql = query;
-      for (String param : params) {
-        actualSql = actualSql.replaceFirst("\\?", param.substring(param.indexOf(":") + 1).trim());
+      for (int id = 3; id <= 4; id++) {
+        String username = "renamed" + id;
+        updated.add(BATCH."UPDATE USER SET USERNAME = \{username} WHERE ID = \{id}");
       }
-      System.out.println("<=== Actual SQL: " + actualSql);
+      assertFalse(updated.get(0).isDone());
+    }
+
+    assertEquals(List.of(1, 1, 1), inserted.stream().map(CompletableFuture::join).toList());
+    assertEquals(List.of(1, 0), updated.stream().map(CompletableFuture::join).toList());
+    verify(insert, times(3)).addBatch();
+    verify(insert, times(1)).executeBatch();
+    verify(update, times(1)).executeBatch();
+    verify(conn, times(2)).prepareStatement(anyString());
+  }
+
+  /**
+   * Batched writes: a partially filled batch is sent once its oldest row has waited long enough
+   */
+  @Test
+  public void test08() throws Exception {
+    final Connection conn = Mockito.mock(Connection.class);
+    final PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+    when(conn.prepareStatement(anyString())).thenReturn(ps);
+    when(ps.executeBatch()).thenReturn(new int[] {1});
+
+    try (BatchQueryBuilder BATCH = new BatchQueryBuilder(conn, 100, Duration.ofMillis(20))) {
+      int id = 1;
+      CompletableFuture<Integer> result = BATCH."DELETE FROM USER WHERE ID = \{id}";
+      assertEquals(1, result.get(5, TimeUnit.SECONDS));
+    }
+    verify(ps, times(1)).executeBatch();
+  }
+
+  /**
+   * Batched writes: futures complete outside the builder's lock, so a dependent stage may queue rows
+   * while a flush is running; a closed builder rejects rows
+   */
+  @Test
+  public void test10() throws Exception {
+    final Connection conn = Mockito.mock(Connection.class);
+    final PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+    when(conn.prepareStatement(anyString())).thenReturn(ps);
+    when(ps.executeBatch()).thenReturn(new int[] {1});
+
+    int id = 1;
+    String username = "user1";
+    List<CompletableFuture<Integer>> followUps = new ArrayList<>();
+    BatchQueryBuilder BATCH = new BatchQueryBuilder(conn, 10);
+    try (BATCH) {
+      BATCH."INSERT INTO USER (ID, USERNAME) VALUES (\{id}, \{username})".thenRun(() -> {
+        try {
+          followUps.add(BATCH."UPDATE USER SET USERNAME = \{username} WHERE ID = \{id}");
+        } catch (SQLException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      BATCH."DELETE FROM USER WHERE ID = \{id}";
+      // The insert's stage runs inline during the flush and queues the update for the next one
+      BATCH.flush();
+      assertEquals(1, followUps.size());
+      assertFalse(followUps.get(0).isDone());
+    }
+
+    assertEquals(1, followUps.get(0).join());
+    assertThrows(IllegalStateException.class, () -> BATCH."DELETE FROM USER WHERE ID = \{id}");
+    verify(conn, times(3)).prepareStatement(anyString());
+  }
+
+  /**
+   * Values are bound through setters resolved per template and value types; a call site whose value
+   * types change is still bound correctly by the binder's fallback
+   */
+  @Test
+  public void test09() throws SQLException {
+    final Connection conn = Mockito.mock(Connection.class);
+    final PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+    when(conn.prepareStatement(anyString())).thenReturn(ps);
+    QueryBuilder DB = new QueryBuilder(conn);
 
-      return ps;
+    for (Object id : new Object[] {1, 2, "3", null, BigDecimal.TEN, 2.5, true}) {
+      PreparedStatement bound = DB."SELECT * FROM USER WHERE ID = \{id}";
+      assertSame(ps, bound);
     }
+    verify(ps).setInt(1, 1);
+    verify(ps).setInt(1, 2);
+    verify(ps).setString(1, "3");
+    verify(ps).setNull(1, Types.NULL);
+    verify(ps).setBigDecimal(1, BigDecimal.TEN);
+    verify(ps).setDouble(1, 2.5);
+    verify(ps).setBoolean(1, true);
   }
 
 }
@@ -1,6 +1,7 @@
 module org.example.daoimplmodule {
   requires transitive org.example.entitymodule;
   requires transitive org.example.daomodule;
+  requires transitive java.sql;
 
   exports org.example.dao.impl;
 }
\ No newline at end of file
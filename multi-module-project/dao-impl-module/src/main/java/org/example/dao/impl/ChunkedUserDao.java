@@ -0,0 +1,236 @@
+package org.example.dao.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.example.dao.Dao;
+import org.example.dao.Slice;
+import org.example.entity.User;
+
+/**
+ * Base for DAOs that keep users as fixed-size records in {@link ByteBuffer} chunks outside the Java
+ * heap. The record of id {@code n} is at offset {@code (n % CHUNK_RECORDS) * RECORD_SIZE} of chunk
+ * {@code n / CHUNK_RECORDS}, so lookups are offset arithmetic and records are laid out in id order.
+ * Ids must be non-negative and names must fit in {@link #MAX_NAME_BYTES} UTF-8 bytes.
+ * <p>
+ * Subclasses decide where chunks live and where the record count, the highest id and the live record
+ * count of each chunk are kept, and how a record is handed out. Not thread-safe.
+ * <p>
+ * Full walks and scans skip chunks without live records and stop once {@link #count()} records have
+ * been visited, so a few large sparse ids do not make every walk touch each id up to the highest.
+ */
+abstract class ChunkedUserDao implements Dao<User> {
+
+  static final int RECORD_SIZE = 64;
+  static final int MAX_NAME_BYTES = RECORD_SIZE - 4;
+  static final int CHUNK_BITS = 16;
+  static final int CHUNK_RECORDS = 1 << CHUNK_BITS;
+  static final long CHUNK_SIZE = (long) CHUNK_RECORDS * RECORD_SIZE;
+  // Ids are non-negative ints
+  static final int MAX_CHUNKS = 1 << (31 - CHUNK_BITS);
+
+  // Record layout
+  private static final byte EMPTY = 0;
+  private static final byte LIVE = 1;
+  private static final int STATE_OFFSET = 0;
+  private static final int GENERATION_OFFSET = 1;
+  private static final int NAME_LENGTH_OFFSET = 2;
+  private static final int NAME_OFFSET = 4;
+
+  /**
+   * Returns chunk {@code index}, or {@code null} if it was never allocated and {@code create} is
+   * false.
+   */
+  abstract ByteBuffer chunk(int index, boolean create);
+
+  public abstract int count();
+
+  abstract void setCount(int count);
+
+  abstract int highestId();
+
+  abstract void setHighestId(int id);
+
+  /**
+   * Live records in chunk {@code index}, 0 for a chunk never written. Kept up to date by save and
+   * delete, so walks skip empty chunks without reading them.
+   */
+  abstract int liveRecords(int index);
+
+  abstract void setLiveRecords(int index, int live);
+
+  /**
+   * Hands out the live record at {@code offset}, e.g. as a view over the chunk.
+   */
+  abstract User read(ByteBuffer chunk, int offset);
+
+  @Override
+  public User findById(int id) {
+    ByteBuffer chunk = liveChunk(id);
+    return chunk == null ? null : read(chunk, recordOffset(id));
+  }
+
+  @Override
+  public List<User> findAll() {
+    List<User> result = new ArrayList<>(count());
+    forEach(result::add);
+    return result;
+  }
+
+  // Stops after count() live records, so a few large ids do not make every scan walk to highestId.
+  @Override
+  public void forEach(Consumer<? super User> action) {
+    long id = 0;
+    for (int remaining = count(); remaining > 0; remaining--, id++) {
+      id = nextLiveId(id);
+      if (id < 0) {
+        return;
+      }
+      action.accept(findById((int) id));
+    }
+  }
+
+  // Records are laid out in id order, so a scan resumes by seeking straight to afterId + 1.
+  @Override
+  public Slice<User> scan(int afterId, int limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException("limit=" + limit);
+    }
+    List<User> content = new ArrayList<>(Math.min(limit, 1024));
+    int lastId = afterId;
+    long id = nextLiveId(Math.max(0, (long) afterId + 1));
+    for (; id >= 0 && content.size() < limit; id = nextLiveId(id + 1)) {
+      content.add(findById((int) id));
+      lastId = (int) id;
+    }
+    return new Slice<>(content, lastId, id >= 0);
+  }
+
+  @Override
+  public User save(int id, User user) {
+    if (id < 0) {
+      throw new IllegalArgumentException("Negative id: " + id);
+    }
+    byte[] name = encode(user.getName());
+    ByteBuffer live = liveChunk(id);
+    User previous = live == null ? null : new User(readName(live, recordOffset(id)));
+    int index = id >>> CHUNK_BITS;
+    writeName(chunk(index, true), recordOffset(id), name);
+    if (previous == null) {
+      setLiveRecords(index, liveRecords(index) + 1);
+      setCount(count() + 1);
+    }
+    if (id > highestId()) {
+      setHighestId(id);
+    }
+    return previous;
+  }
+
+  @Override
+  public boolean update(int id, User user) {
+    byte[] name = encode(user.getName());
+    ByteBuffer chunk = liveChunk(id);
+    if (chunk == null) {
+      return false;
+    }
+    writeName(chunk, recordOffset(id), name);
+    return true;
+  }
+
+  @Override
+  public boolean delete(int id) {
+    ByteBuffer chunk = liveChunk(id);
+    if (chunk == null) {
+      return false;
+    }
+    int index = id >>> CHUNK_BITS;
+    int offset = recordOffset(id);
+    chunk.put(offset + GENERATION_OFFSET, (byte) (chunk.get(offset + GENERATION_OFFSET) + 1));
+    chunk.put(offset + STATE_OFFSET, EMPTY);
+    setLiveRecords(index, liveRecords(index) - 1);
+    setCount(count() - 1);
+    return true;
+  }
+
+  /**
+   * Returns the first live id at or after {@code fromId}, or {@code -1}. Chunks without live records
+   * are skipped whole.
+   */
+  private long nextLiveId(long fromId) {
+    long highestId = highestId();
+    for (long id = fromId; id <= highestId; ) {
+      int index = (int) (id >>> CHUNK_BITS);
+      long chunkEnd = Math.min(highestId, ((long) index << CHUNK_BITS) + CHUNK_RECORDS - 1);
+      if (liveRecords(index) > 0) {
+        ByteBuffer chunk = chunk(index, false);
+        for (; id <= chunkEnd; id++) {
+          if (chunk.get(recordOffset((int) id) + STATE_OFFSET) == LIVE) {
+            return id;
+          }
+        }
+      }
+      id = chunkEnd + 1;
+    }
+    return -1;
+  }
+
+  private ByteBuffer liveChunk(int id) {
+    if (id < 0 || id > highestId()) {
+      return null;
+    }
+    ByteBuffer chunk = chunk(id >>> CHUNK_BITS, false);
+    return chunk != null && chunk.get(recordOffset(id) + STATE_OFFSET) == LIVE ? chunk : null;
+  }
+
+  static int recordOffset(int id) {
+    return (id & (CHUNK_RECORDS - 1)) * RECORD_SIZE;
+  }
+
+  /**
+   * Returns the generation of the record at {@code offset}; it changes each time the record is deleted
+   * and wraps after 256 deletions.
+   */
+  static byte generation(ByteBuffer chunk, int offset) {
+    return chunk.get(offset + GENERATION_OFFSET);
+  }
+
+  static boolean isLive(ByteBuffer chunk, int offset, byte generation) {
+    return chunk.get(offset + STATE_OFFSET) == LIVE && chunk.get(offset + GENERATION_OFFSET) == generation;
+  }
+
+  static String readName(ByteBuffer chunk, int offset) {
+    int length = chunk.getShort(offset + NAME_LENGTH_OFFSET);
+    if (length < 0) {
+      return null;
+    }
+    byte[] name = new byte[length];
+    for (int i = 0; i < length; i++) {
+      name[i] = chunk.get(offset + NAME_OFFSET + i);
+    }
+    return new String(name, StandardCharsets.UTF_8);
+  }
+
+  // The state byte is written last, so a record only turns live once its name is in place.
+  static void writeName(ByteBuffer chunk, int offset, byte[] name) {
+    chunk.putShort(offset + NAME_LENGTH_OFFSET, (short) (name == null ? -1 : name.length));
+    if (name != null) {
+      for (int i = 0; i < name.length; i++) {
+        chunk.put(offset + NAME_OFFSET + i, name[i]);
+      }
+    }
+    chunk.put(offset + STATE_OFFSET, LIVE);
+  }
+
+  static byte[] encode(String name) {
+    if (name == null) {
+      return null;
+    }
+    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > MAX_NAME_BYTES) {
+      throw new IllegalArgumentException("Name longer than " + MAX_NAME_BYTES + " UTF-8 bytes: " + name);
+    }
+    return bytes;
+  }
+}
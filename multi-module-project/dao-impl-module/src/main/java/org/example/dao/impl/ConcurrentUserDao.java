@@ -0,0 +1,455 @@
+package org.example.dao.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import org.example.dao.Dao;
+import org.example.dao.Slice;
+import org.example.entity.User;
+import org.example.util.Hashing;
+
+/**
+ * Thread-safe in-memory DAO. Ids are spread over lock stripes, each an {@link IntObjectMap} guarded by
+ * a {@link StampedLock}: writers only contend within their stripe and point reads are optimistic, so
+ * they never write shared memory. Single-key operations are linearizable; findAll sees a weakly
+ * consistent snapshot that is rebuilt only after some stripe changed.
+ * <p>
+ * Paging, scans and iteration walk a sorted index of the stored ids instead, so they hold only the
+ * requested page and a scan resumes directly after its last id. The index is updated under the stripe
+ * write lock of each id and is weakly consistent like the snapshot. Offset paging remembers where the
+ * last page ended, so walking pages in order resumes from there while no write intervenes; any other
+ * offset walks the index from the start.
+ * <p>
+ * Names are indexed in separate partitions chosen by the hash of the name, so an exact lookup reads
+ * one partition. An id's index entries are changed while its stripe write lock is held, and a name
+ * query re-checks the current name of every user it returns, so it never sees a user under a name it
+ * no longer has.
+ */
+public class ConcurrentUserDao implements Dao<User>, UserNameLookup {
+
+  private final Stripe[] stripes;
+  private final NamePartition[] names;
+  private final int stripeShift;
+  private final ConcurrentSkipListSet<Integer> ids = new ConcurrentSkipListSet<>();
+  private volatile UserSnapshot snapshot;
+  private volatile PageCursor cursor;
+
+  public ConcurrentUserDao() {
+    this(Runtime.getRuntime().availableProcessors() * 4);
+  }
+
+  public ConcurrentUserDao(int concurrencyLevel) {
+    this(concurrencyLevel, 0);
+  }
+
+  /**
+   * Pre-sizes the stripes for {@code expectedSize} users so a bulk load does not rehash.
+   */
+  public ConcurrentUserDao(int concurrencyLevel, int expectedSize) {
+    int count = Integer.highestOneBit(Math.max(1, concurrencyLevel - 1)) << 1;
+    stripes = new Stripe[count];
+    names = new NamePartition[count];
+    for (int i = 0; i < count; i++) {
+      stripes[i] = new Stripe(expectedSize / count + 1);
+      names[i] = new NamePartition();
+    }
+    stripeShift = 32 - Integer.numberOfTrailingZeros(count);
+  }
+
+  public ConcurrentUserDao(Map<Integer, User> users) {
+    this();
+    users.forEach(this::put);
+  }
+
+  /**
+   * Rebuilds a DAO from a snapshot written by {@link #writeSnapshot(Path)}, pre-sized from its header.
+   */
+  public static ConcurrentUserDao restore(Path snapshot) throws IOException {
+    try (UserSnapshotReader reader = new UserSnapshotReader(snapshot)) {
+      ConcurrentUserDao dao = new ConcurrentUserDao(Runtime.getRuntime().availableProcessors() * 4,
+          (int) reader.getRecords());
+      reader.read((user, id) -> dao.save(id, user));
+      return dao;
+    }
+  }
+
+  /**
+   * Writes every user to {@code snapshot} in id order. Each stripe is copied under its read lock and
+   * written after all locks are released, so writers are blocked only for the copy; the result is
+   * weakly consistent across stripes. An existing snapshot is replaced atomically and only once the new
+   * one is complete.
+   */
+  public void writeSnapshot(Path snapshot) throws IOException {
+    IntObjectMap<User> copy = new IntObjectMap<>();
+    for (Stripe stripe : stripes) {
+      stripe.copyTo(copy);
+    }
+    int[] ids = copy.keys();
+    Arrays.sort(ids);
+    UserSnapshotWriter.replace(snapshot, writer -> {
+      for (int id : ids) {
+        writer.write(id, copy.get(id));
+      }
+    });
+  }
+
+  @Override
+  public User findById(int id) {
+    return stripeFor(id).get(id);
+  }
+
+  @Override
+  public List<User> findAll() {
+    return snapshot().users();
+  }
+
+  @Override
+  public List<User> findPage(int offset, int limit) {
+    if (offset < 0 || limit < 0) {
+      throw new IllegalArgumentException("offset=" + offset + ", limit=" + limit);
+    }
+    long version = version();
+    PageCursor start = cursor;
+    Iterator<Integer> it;
+    int position;
+    int lastId;
+    if (start != null && start.version == version && start.position <= offset) {
+      it = ids.tailSet(start.id, false).iterator();
+      position = start.position;
+      lastId = start.id;
+    } else {
+      it = ids.iterator();
+      position = 0;
+      lastId = 0;
+    }
+    for (; position < offset && it.hasNext(); position++) {
+      lastId = it.next();
+    }
+    List<User> page = new ArrayList<>(Math.min(limit, 256));
+    for (; page.size() < limit && it.hasNext(); position++) {
+      lastId = it.next();
+      User user = findById(lastId);
+      if (user != null) {
+        page.add(user);
+      }
+    }
+    // Positions are only known to be exact if no write landed during the walk.
+    if (position > 0 && version() == version) {
+      cursor = new PageCursor(version, position, lastId);
+    }
+    return Collections.unmodifiableList(page);
+  }
+
+  @Override
+  public Slice<User> scan(int afterId, int limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException("limit=" + limit);
+    }
+    Iterator<Integer> it = ids.tailSet(afterId, false).iterator();
+    List<User> content = new ArrayList<>(Math.min(limit, 256));
+    int lastId = afterId;
+    while (content.size() < limit && it.hasNext()) {
+      int id = it.next();
+      User user = findById(id);
+      // Null when the id was deleted after the iterator passed the index entry.
+      if (user != null) {
+        content.add(user);
+        lastId = id;
+      }
+    }
+    return new Slice<>(Collections.unmodifiableList(content), lastId, it.hasNext());
+  }
+
+  @Override
+  public void forEach(Consumer<? super User> action) {
+    for (Integer id : ids) {
+      User user = findById(id);
+      if (user != null) {
+        action.accept(user);
+      }
+    }
+  }
+
+  @Override
+  public Spliterator<User> spliterator() {
+    return ids.stream().map(this::findById).filter(Objects::nonNull).spliterator();
+  }
+
+  @Override
+  public List<User> findByName(String name) {
+    if (name == null) {
+      return new ArrayList<>();
+    }
+    NamePartition partition = partitionFor(name);
+    int[] ids;
+    long stamp = partition.lock.readLock();
+    try {
+      ids = partition.index.ids(name);
+    } finally {
+      partition.lock.unlockRead(stamp);
+    }
+    List<User> result = new ArrayList<>(ids.length);
+    for (int id : ids) {
+      User user = named(id, name);
+      if (user != null) {
+        result.add(user);
+      }
+    }
+    return result;
+  }
+
+  // Every partition contributes its own first matches in name order; the merged list is cut to limit.
+  @Override
+  public List<User> findByNamePrefix(String prefix, int limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException("limit=" + limit);
+    }
+    List<Map.Entry<String, User>> matches = new ArrayList<>();
+    for (NamePartition partition : names) {
+      collectPrefix(partition, prefix, limit, matches);
+    }
+    matches.sort(Map.Entry.comparingByKey());
+    List<User> result = new ArrayList<>(Math.min(limit, matches.size()));
+    for (int i = 0; i < matches.size() && result.size() < limit; i++) {
+      result.add(matches.get(i).getValue());
+    }
+    return result;
+  }
+
+  /**
+   * Adds up to {@code limit} users of one partition whose current name matches. Stale index entries
+   * do not count, so the window of candidates doubles until enough survive or the partition runs out.
+   * The re-check runs outside the partition lock, as writers take it while holding a stripe lock.
+   */
+  private void collectPrefix(NamePartition partition, String prefix, int limit, List<Map.Entry<String, User>> matches) {
+    List<Map.Entry<String, Integer>> candidates = new ArrayList<>();
+    Set<Integer> seen = new HashSet<>();
+    int survivors = 0;
+    for (int window = limit; survivors < limit; window = (int) Math.min(Integer.MAX_VALUE, 2L * window)) {
+      candidates.clear();
+      long stamp = partition.lock.readLock();
+      try {
+        partition.index.forEachPrefix(prefix, window,
+            (id, name) -> candidates.add(new AbstractMap.SimpleImmutableEntry<>(name, id)));
+      } finally {
+        partition.lock.unlockRead(stamp);
+      }
+      for (int i = 0; i < candidates.size() && survivors < limit; i++) {
+        Map.Entry<String, Integer> candidate = candidates.get(i);
+        // The window restarts from the first match, so skip ids already checked.
+        if (seen.add(candidate.getValue())) {
+          User user = named(candidate.getValue(), candidate.getKey());
+          if (user != null) {
+            matches.add(new AbstractMap.SimpleImmutableEntry<>(candidate.getKey(), user));
+            survivors++;
+          }
+        }
+      }
+      if (candidates.size() < window) {
+        return;
+      }
+    }
+  }
+
+  // Null for index entries that a concurrent rename or delete has not removed yet.
+  private User named(int id, String name) {
+    User user = findById(id);
+    return user != null && name.equals(user.getName()) ? user : null;
+  }
+
+  @Override
+  public User save(int id, User user) {
+    return put(id, user);
+  }
+
+  // Not overridable, so constructors can fill the stripes without leaking a partly built this.
+  private User put(int id, User user) {
+    Stripe stripe = stripeFor(id);
+    long stamp = stripe.lock.writeLock();
+    try {
+      User previous = stripe.table.put(id, user);
+      reindex(id, previous, user);
+      if (previous == null) {
+        ids.add(id);
+      }
+      return previous;
+    } finally {
+      stripe.lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public boolean update(int id, User user) {
+    Stripe stripe = stripeFor(id);
+    long stamp = stripe.lock.writeLock();
+    try {
+      User previous = stripe.table.get(id);
+      if (previous == null) {
+        return false;
+      }
+      stripe.table.put(id, user);
+      reindex(id, previous, user);
+      return true;
+    } finally {
+      stripe.lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public boolean delete(int id) {
+    Stripe stripe = stripeFor(id);
+    long stamp = stripe.lock.writeLock();
+    try {
+      User previous = stripe.table.remove(id);
+      if (previous == null) {
+        return false;
+      }
+      reindex(id, previous, null);
+      ids.remove(id);
+      return true;
+    } finally {
+      stripe.lock.unlockWrite(stamp);
+    }
+  }
+
+  private Stripe stripeFor(int id) {
+    // High bits of a multiplier other than IntObjectMap's, so a stripe's keys still spread in its table.
+    return stripes[(id * 0x85EBCA6B) >>> stripeShift];
+  }
+
+  // Caller holds the write lock of the id's stripe, which orders all index changes of one id.
+  private void reindex(int id, User previous, User current) {
+    String oldName = previous == null ? null : previous.getName();
+    String newName = current == null ? null : current.getName();
+    if (oldName != null && !oldName.equals(newName)) {
+      NamePartition partition = partitionFor(oldName);
+      long stamp = partition.lock.writeLock();
+      try {
+        partition.index.remove(oldName, id);
+      } finally {
+        partition.lock.unlockWrite(stamp);
+      }
+    }
+    if (newName != null && !newName.equals(oldName)) {
+      NamePartition partition = partitionFor(newName);
+      long stamp = partition.lock.writeLock();
+      try {
+        partition.index.add(newName, id);
+      } finally {
+        partition.lock.unlockWrite(stamp);
+      }
+    }
+  }
+
+  private NamePartition partitionFor(String name) {
+    return names[Hashing.index(name.hashCode(), names.length)];
+  }
+
+  private long version() {
+    long version = 0;
+    for (Stripe stripe : stripes) {
+      version += stripe.version();
+    }
+    return version;
+  }
+
+  private UserSnapshot snapshot() {
+    UserSnapshot current = snapshot;
+    long version = version();
+    if (current == null || current.version() != version) {
+      IntObjectMap<User> copy = new IntObjectMap<>();
+      for (Stripe stripe : stripes) {
+        stripe.copyTo(copy);
+      }
+      current = new UserSnapshot(version, copy);
+      snapshot = current;
+    }
+    return current;
+  }
+
+  // The id at position - 1 of the index as of the given version.
+  private static final class PageCursor {
+
+    private final long version;
+    private final int position;
+    private final int id;
+
+    PageCursor(long version, int position, int id) {
+      this.version = version;
+      this.position = position;
+      this.id = id;
+    }
+  }
+
+  private static final class NamePartition {
+
+    private final StampedLock lock = new StampedLock();
+    private final NameIndex index = new NameIndex();
+  }
+
+  private static final class Stripe {
+
+    private final StampedLock lock = new StampedLock();
+    private final IntObjectMap<User> table;
+
+    Stripe(int expectedSize) {
+      table = new IntObjectMap<>(expectedSize);
+    }
+
+    User get(int id) {
+      long stamp = lock.tryOptimisticRead();
+      if (stamp != 0L) {
+        try {
+          User user = table.get(id);
+          if (lock.validate(stamp)) {
+            return user;
+          }
+        } catch (RuntimeException e) {
+          // Torn read during a concurrent resize; fall through to the read lock.
+        }
+      }
+      stamp = lock.readLock();
+      try {
+        return table.get(id);
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+
+    int version() {
+      long stamp = lock.tryOptimisticRead();
+      int version = table.version();
+      if (lock.validate(stamp)) {
+        return version;
+      }
+      stamp = lock.readLock();
+      try {
+        return table.version();
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+
+    void copyTo(IntObjectMap<User> target) {
+      long stamp = lock.readLock();
+      try {
+        table.forEachEntry(target::put);
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+  }
+}
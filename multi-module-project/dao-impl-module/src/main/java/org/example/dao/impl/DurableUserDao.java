@@ -0,0 +1,198 @@
+package org.example.dao.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import org.example.dao.Dao;
+import org.example.dao.Slice;
+import org.example.dao.impl.WriteAheadLog.Durability;
+import org.example.entity.User;
+
+/**
+ * {@link ConcurrentUserDao} made crash-safe by a {@link WriteAheadLog} next to a snapshot. Every write
+ * is logged and applied under a per-id lock, so log order matches the in-memory order for each id,
+ * and then waits for the log's durability level outside that lock, where concurrent writers share
+ * group commits. A write is visible to readers slightly before it is durable.
+ * <p>
+ * {@link #open(Path, Durability)} restores the last snapshot and replays the log onto it;
+ * {@link #checkpoint()} writes a new snapshot and empties the log. Write failures of the log surface as
+ * {@link UncheckedIOException}.
+ */
+public class DurableUserDao implements Dao<User>, UserNameLookup, Closeable {
+
+  static final String SNAPSHOT_FILE = "users.snapshot";
+  static final String LOG_FILE = "users.wal";
+
+  private static final int KEY_LOCKS = 256;
+
+  private final Path directory;
+  private final ConcurrentUserDao users;
+  private final WriteAheadLog log;
+  private final Object[] keyLocks = new Object[KEY_LOCKS];
+  // Writers share it; checkpoint takes it exclusively so snapshot and log truncation see no writes.
+  private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+
+  private DurableUserDao(Path directory, ConcurrentUserDao users, WriteAheadLog log) {
+    this.directory = directory;
+    this.users = users;
+    this.log = log;
+    for (int i = 0; i < KEY_LOCKS; i++) {
+      keyLocks[i] = new Object();
+    }
+  }
+
+  public static DurableUserDao open(Path directory, Durability durability) throws IOException {
+    Files.createDirectories(directory);
+    Path snapshot = directory.resolve(SNAPSHOT_FILE);
+    ConcurrentUserDao users = Files.exists(snapshot) ? ConcurrentUserDao.restore(snapshot) : new ConcurrentUserDao();
+    WriteAheadLog log = WriteAheadLog.open(directory.resolve(LOG_FILE), durability, (op, id, name) -> {
+      if (op == WriteAheadLog.SAVE) {
+        users.save(id, new User(name));
+      } else if (op == WriteAheadLog.DELETE) {
+        users.delete(id);
+      } else {
+        throw new IOException("Unknown log operation " + op + " for user " + id);
+      }
+    });
+    return new DurableUserDao(directory, users, log);
+  }
+
+  @Override
+  public User findById(int id) {
+    return users.findById(id);
+  }
+
+  @Override
+  public List<User> findAll() {
+    return users.findAll();
+  }
+
+  @Override
+  public List<User> findPage(int offset, int limit) {
+    return users.findPage(offset, limit);
+  }
+
+  @Override
+  public Slice<User> scan(int afterId, int limit) {
+    return users.scan(afterId, limit);
+  }
+
+  @Override
+  public void forEach(Consumer<? super User> action) {
+    users.forEach(action);
+  }
+
+  @Override
+  public List<User> findByName(String name) {
+    return users.findByName(name);
+  }
+
+  @Override
+  public List<User> findByNamePrefix(String prefix, int limit) {
+    return users.findByNamePrefix(prefix, limit);
+  }
+
+  @Override
+  public User save(int id, User user) {
+    checkpointLock.readLock().lock();
+    try {
+      long lsn;
+      User previous;
+      synchronized (lockFor(id)) {
+        lsn = log.appendSave(id, user.getName());
+        previous = users.save(id, user);
+      }
+      log.await(lsn);
+      return previous;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      checkpointLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public boolean update(int id, User user) {
+    checkpointLock.readLock().lock();
+    try {
+      long lsn;
+      synchronized (lockFor(id)) {
+        if (users.findById(id) == null) {
+          return false;
+        }
+        lsn = log.appendSave(id, user.getName());
+        users.save(id, user);
+      }
+      log.await(lsn);
+      return true;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      checkpointLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public boolean delete(int id) {
+    checkpointLock.readLock().lock();
+    try {
+      long lsn;
+      synchronized (lockFor(id)) {
+        if (users.findById(id) == null) {
+          return false;
+        }
+        lsn = log.appendDelete(id);
+        users.delete(id);
+      }
+      log.await(lsn);
+      return true;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      checkpointLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Writes a snapshot of the current state and empties the log. The snapshot replaces the previous one
+   * atomically; if the process dies before the log is emptied, replaying the log onto the new snapshot
+   * yields the same state.
+   */
+  public void checkpoint() throws IOException {
+    checkpointLock.writeLock().lock();
+    try {
+      log.flush();
+      users.writeSnapshot(directory.resolve(SNAPSHOT_FILE));
+      log.reset();
+    } finally {
+      checkpointLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Number of log batches written so far; compare with the number of writes to see group commit work.
+   */
+  public long getLogFlushes() {
+    return log.getFlushes();
+  }
+
+  @Override
+  public void close() throws IOException {
+    checkpointLock.writeLock().lock();
+    try {
+      log.close();
+    } finally {
+      checkpointLock.writeLock().unlock();
+    }
+  }
+
+  private Object lockFor(int id) {
+    return keyLocks[(id * 0x9E3779B9) >>> 24];
+  }
+}
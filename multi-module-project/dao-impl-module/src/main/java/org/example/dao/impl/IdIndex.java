@@ -0,0 +1,60 @@
+package org.example.dao.impl;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of ids in one growable {@code int} array, so the id at a position and the position after
+ * an id are both found without walking the set. Ids inserted in ascending order, as by a restore, are
+ * appended; any other insert or delete shifts the tail of the array. Not thread-safe; owners update it
+ * together with their primary table.
+ */
+final class IdIndex {
+
+  private int[] ids;
+  private int size;
+
+  IdIndex(int expectedSize) {
+    ids = new int[Math.max(16, expectedSize)];
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Id at {@code position} in ascending order.
+   */
+  int get(int position) {
+    return ids[position];
+  }
+
+  void add(int id) {
+    int i = size == 0 || ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+    if (i >= 0) {
+      return;
+    }
+    i = -i - 1;
+    if (size == ids.length) {
+      ids = Arrays.copyOf(ids, size * 2);
+    }
+    System.arraycopy(ids, i, ids, i + 1, size - i);
+    ids[i] = id;
+    size++;
+  }
+
+  void remove(int id) {
+    int i = Arrays.binarySearch(ids, 0, size, id);
+    if (i >= 0) {
+      System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+      size--;
+    }
+  }
+
+  /**
+   * Position of the first id strictly greater than {@code id}.
+   */
+  int positionAfter(int id) {
+    int i = Arrays.binarySearch(ids, 0, size, id);
+    return i >= 0 ? i + 1 : -i - 1;
+  }
+}
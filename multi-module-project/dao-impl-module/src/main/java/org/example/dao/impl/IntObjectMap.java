@@ -0,0 +1,234 @@
+package org.example.dao.impl;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import org.example.util.Hashing;
+
+/**
+ * Open-addressing hash table from {@code int} keys to objects. Keys are stored unboxed in a parallel
+ * array and probed linearly, so lookups never allocate. A {@code null} value marks an empty slot.
+ */
+class IntObjectMap<V> {
+
+  private static final int MIN_CAPACITY = 16;
+
+  private int[] keys;
+  private Object[] values;
+  private int size;
+  private int mask;
+  private int version;
+
+  IntObjectMap() {
+    this(MIN_CAPACITY);
+  }
+
+  IntObjectMap(int expectedSize) {
+    int capacity = tableSizeFor(expectedSize);
+    keys = new int[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+  }
+
+  @SuppressWarnings("unchecked")
+  V get(int key) {
+    int[] keys = this.keys;
+    Object[] values = this.values;
+    int mask = this.mask;
+    for (int i = Hashing.spread(key) & mask; ; i = (i + 1) & mask) {
+      Object value = values[i];
+      if (value == null) {
+        return null;
+      }
+      if (keys[i] == key) {
+        return (V) value;
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  V put(int key, V value) {
+    if (value == null) {
+      throw new NullPointerException("value");
+    }
+    for (int i = Hashing.spread(key) & mask; ; i = (i + 1) & mask) {
+      Object current = values[i];
+      if (current == null) {
+        keys[i] = key;
+        values[i] = value;
+        version++;
+        if (++size > (mask + 1) >>> 1) {
+          resize((mask + 1) << 1);
+        }
+        return null;
+      }
+      if (keys[i] == key) {
+        values[i] = value;
+        version++;
+        return (V) current;
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  V remove(int key) {
+    for (int i = Hashing.spread(key) & mask; ; i = (i + 1) & mask) {
+      Object current = values[i];
+      if (current == null) {
+        return null;
+      }
+      if (keys[i] == key) {
+        shiftBack(i);
+        size--;
+        version++;
+        return (V) current;
+      }
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Incremented on every structural or value change; lets callers cache derived views.
+   */
+  int version() {
+    return version;
+  }
+
+  int[] keys() {
+    int[] result = new int[size];
+    int n = 0;
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        result[n++] = keys[i];
+      }
+    }
+    return result;
+  }
+
+  Spliterator<V> spliterator() {
+    return new ValueSpliterator<>(values, 0, values.length, size);
+  }
+
+  @SuppressWarnings("unchecked")
+  void forEach(Consumer<? super V> action) {
+    for (Object value : values) {
+      if (value != null) {
+        action.accept((V) value);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  void forEachEntry(IntObjectConsumer<? super V> action) {
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        action.accept(keys[i], (V) values[i]);
+      }
+    }
+  }
+
+  interface IntObjectConsumer<V> {
+
+    void accept(int key, V value);
+  }
+
+  private static final class ValueSpliterator<V> implements Spliterator<V> {
+
+    private final Object[] values;
+    private int index;
+    private final int fence;
+    private long estimate;
+
+    ValueSpliterator(Object[] values, int origin, int fence, long estimate) {
+      this.values = values;
+      this.index = origin;
+      this.fence = fence;
+      this.estimate = estimate;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean tryAdvance(Consumer<? super V> action) {
+      while (index < fence) {
+        Object value = values[index++];
+        if (value != null) {
+          action.accept((V) value);
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachRemaining(Consumer<? super V> action) {
+      Object[] values = this.values;
+      for (int i = index; i < fence; i++) {
+        if (values[i] != null) {
+          action.accept((V) values[i]);
+        }
+      }
+      index = fence;
+    }
+
+    @Override
+    public Spliterator<V> trySplit() {
+      int mid = (index + fence) >>> 1;
+      if (mid <= index) {
+        return null;
+      }
+      Spliterator<V> prefix = new ValueSpliterator<>(values, index, mid, estimate >>>= 1);
+      index = mid;
+      return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+      return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+      return NONNULL;
+    }
+  }
+
+  // Backward-shift deletion keeps probe chains intact without tombstones.
+  private void shiftBack(int hole) {
+    for (int i = (hole + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+      int home = Hashing.spread(keys[i]) & mask;
+      if (((i - home) & mask) >= ((i - hole) & mask)) {
+        keys[hole] = keys[i];
+        values[hole] = values[i];
+        hole = i;
+      }
+    }
+    values[hole] = null;
+  }
+
+  private void resize(int capacity) {
+    int[] oldKeys = keys;
+    Object[] oldValues = values;
+    keys = new int[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+    for (int j = 0; j < oldValues.length; j++) {
+      if (oldValues[j] != null) {
+        int i = Hashing.spread(oldKeys[j]) & mask;
+        while (values[i] != null) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+      }
+    }
+  }
+
+  private static int tableSizeFor(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize * 2 - 1)) << 1;
+    return Math.max(MIN_CAPACITY, capacity);
+  }
+
+}
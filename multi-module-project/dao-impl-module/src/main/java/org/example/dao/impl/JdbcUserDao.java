@@ -0,0 +1,232 @@
+package org.example.dao.impl;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.example.dao.Dao;
+import org.example.dao.DataAccessException;
+import org.example.dao.Slice;
+import org.example.entity.User;
+
+/**
+ * DAO over a {@code USERS (ID, NAME)} table of a JDBC database, for example an embedded H2. Every query
+ * is a constant template whose fragments key a {@link StatementCache}, so each shape is prepared once
+ * per connection. Like the connection it wraps, the DAO is single-threaded. {@link SQLException}s
+ * surface as {@link DataAccessException}.
+ * <p>
+ * {@link #save} uses only standard SQL: it locks the row with {@code SELECT ... FOR UPDATE}, then
+ * updates or inserts it, in a transaction of its own when the connection is in auto-commit mode. If
+ * another connection inserts the same id in between, the insert fails on the primary key and the save
+ * is retried once as an update. With auto-commit off, the save joins the caller's transaction and a
+ * primary key conflict is thrown instead.
+ */
+public class JdbcUserDao implements Dao<User>, UserNameLookup, Closeable {
+
+  private static final String[] SCHEMA = {
+      "CREATE TABLE IF NOT EXISTS USERS (ID INT PRIMARY KEY, NAME VARCHAR(255))",
+      "CREATE INDEX IF NOT EXISTS USERS_NAME ON USERS (NAME)"
+  };
+
+  private static final List<String> FIND_BY_ID = List.of("SELECT NAME FROM USERS WHERE ID = ", "");
+  private static final List<String> FIND_ALL = List.of("SELECT ID, NAME FROM USERS ORDER BY ID");
+  private static final List<String> FIND_PAGE = List.of("SELECT ID, NAME FROM USERS ORDER BY ID LIMIT ", " OFFSET ", "");
+  private static final List<String> SCAN = List.of("SELECT ID, NAME FROM USERS WHERE ID > ", " ORDER BY ID LIMIT ", "");
+  private static final List<String> LOCK = List.of("SELECT NAME FROM USERS WHERE ID = ", " FOR UPDATE");
+  private static final List<String> INSERT = List.of("INSERT INTO USERS (ID, NAME) VALUES (", ", ", ")");
+  private static final List<String> UPDATE = List.of("UPDATE USERS SET NAME = ", " WHERE ID = ", "");
+  private static final List<String> DELETE = List.of("DELETE FROM USERS WHERE ID = ", "");
+  private static final List<String> FIND_BY_NAME = List.of("SELECT ID, NAME FROM USERS WHERE NAME = ", " ORDER BY ID");
+  private static final List<String> FIND_BY_NAME_PREFIX =
+      List.of("SELECT ID, NAME FROM USERS WHERE NAME LIKE ", " ESCAPE '\\' ORDER BY NAME, ID LIMIT ", "");
+
+  private final Connection connection;
+  private final StatementCache statements;
+
+  private JdbcUserDao(Connection connection) {
+    this.connection = connection;
+    this.statements = new StatementCache(connection);
+  }
+
+  /**
+   * Creates the table if it is missing. The DAO takes ownership of {@code connection} and closes it in
+   * {@link #close()}.
+   */
+  public static JdbcUserDao open(Connection connection) throws SQLException {
+    try (Statement st = connection.createStatement()) {
+      for (String ddl : SCHEMA) {
+        st.execute(ddl);
+      }
+    }
+    return new JdbcUserDao(connection);
+  }
+
+  @Override
+  public User findById(int id) {
+    try (ResultSet rs = statements.bind(FIND_BY_ID, id).executeQuery()) {
+      return rs.next() ? new User(rs.getString(1)) : null;
+    } catch (SQLException e) {
+      throw failure("findById", e);
+    }
+  }
+
+  @Override
+  public List<User> findAll() {
+    return query("findAll", FIND_ALL);
+  }
+
+  @Override
+  public List<User> findPage(int offset, int limit) {
+    if (offset < 0 || limit < 0) {
+      throw new IllegalArgumentException("offset=" + offset + ", limit=" + limit);
+    }
+    return query("findPage", FIND_PAGE, limit, offset);
+  }
+
+  /**
+   * Keyset scan on the primary key; one extra row is fetched to tell whether another slice follows.
+   */
+  @Override
+  public Slice<User> scan(int afterId, int limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException("limit=" + limit);
+    }
+    List<User> content = new ArrayList<>(Math.min(limit, 1024));
+    int lastId = afterId;
+    boolean hasNext = false;
+    try (ResultSet rs = statements.bind(SCAN, afterId, limit + 1L).executeQuery()) {
+      while (rs.next()) {
+        if (content.size() == limit) {
+          hasNext = true;
+          break;
+        }
+        lastId = rs.getInt(1);
+        content.add(new User(rs.getString(2)));
+      }
+    } catch (SQLException e) {
+      throw failure("scan", e);
+    }
+    return new Slice<>(content, lastId, hasNext);
+  }
+
+  @Override
+  public User save(int id, User user) {
+    try {
+      if (!connection.getAutoCommit()) {
+        return upsert(id, user);
+      }
+      connection.setAutoCommit(false);
+      try {
+        for (int attempt = 0; ; attempt++) {
+          try {
+            User previous = upsert(id, user);
+            connection.commit();
+            return previous;
+          } catch (SQLException | RuntimeException e) {
+            try {
+              connection.rollback();
+            } catch (SQLException suppressed) {
+              e.addSuppressed(suppressed);
+            }
+            // Another connection inserted the id after the lookup; the retry finds and locks its row.
+            if (attempt > 0 || !(e instanceof SQLIntegrityConstraintViolationException)) {
+              throw e;
+            }
+          }
+        }
+      } finally {
+        connection.setAutoCommit(true);
+      }
+    } catch (SQLException e) {
+      throw failure("save", e);
+    }
+  }
+
+  private User upsert(int id, User user) throws SQLException {
+    User previous;
+    try (ResultSet rs = statements.bind(LOCK, id).executeQuery()) {
+      previous = rs.next() ? new User(rs.getString(1)) : null;
+    }
+    if (previous == null) {
+      statements.bind(INSERT, id, user.getName()).executeUpdate();
+    } else {
+      statements.bind(UPDATE, user.getName(), id).executeUpdate();
+    }
+    return previous;
+  }
+
+  @Override
+  public boolean update(int id, User user) {
+    return execute("update", UPDATE, user.getName(), id) > 0;
+  }
+
+  @Override
+  public boolean delete(int id) {
+    return execute("delete", DELETE, id) > 0;
+  }
+
+  @Override
+  public List<User> findByName(String name) {
+    return query("findByName", FIND_BY_NAME, name);
+  }
+
+  @Override
+  public List<User> findByNamePrefix(String prefix, int limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException("limit=" + limit);
+    }
+    String pattern = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + '%';
+    return query("findByNamePrefix", FIND_BY_NAME_PREFIX, pattern, limit);
+  }
+
+  /**
+   * Number of distinct statements prepared on the connection so far.
+   */
+  public int getPreparedStatements() {
+    return statements.size();
+  }
+
+  /**
+   * Closes the cached statements and the connection.
+   */
+  @Override
+  public void close() {
+    try {
+      try {
+        statements.close();
+      } finally {
+        connection.close();
+      }
+    } catch (SQLException e) {
+      throw failure("close", e);
+    }
+  }
+
+  private List<User> query(String operation, List<String> template, Object... values) {
+    List<User> users = new ArrayList<>();
+    try (ResultSet rs = statements.bind(template, values).executeQuery()) {
+      while (rs.next()) {
+        users.add(new User(rs.getString(2)));
+      }
+    } catch (SQLException e) {
+      throw failure(operation, e);
+    }
+    return users;
+  }
+
+  private int execute(String operation, List<String> template, Object... values) {
+    try {
+      return statements.bind(template, values).executeUpdate();
+    } catch (SQLException e) {
+      throw failure(operation, e);
+    }
+  }
+
+  private static DataAccessException failure(String operation, SQLException e) {
+    return new DataAccessException(operation + " failed", e);
+  }
+}
@@ -0,0 +1,159 @@
+package org.example.dao.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.example.entity.User;
+
+/**
+ * File-backed DAO that keeps fixed-size user records in a memory-mapped file. The record of id
+ * {@code n} lives at {@code HEADER_SIZE + n * RECORD_SIZE}, so lookups are offset arithmetic on the
+ * page cache and reopening an existing file only maps it. Sparse ids leave holes that the file system
+ * usually stores sparsely. The header keeps the live record count of every chunk, so the first walk
+ * after reopening skips empty chunks without reading them.
+ * <p>
+ * {@link #findById(int)} decodes nothing: it returns an {@link OffHeapUserDao.UserView} that reads and
+ * writes the mapped record in place. Views must not be used after {@link #close()}.
+ * <p>
+ * Like {@link UserDao} this class is not thread-safe. Call {@link #force()} to flush to disk.
+ * <p>
+ * Java has no public way to unmap a buffer: {@link #close()} forces and drops the chunk mappings so
+ * they are released once garbage collected, but until then they keep address space and, on Windows,
+ * the file locked. The header mapping lives as long as this object.
+ */
+public class MappedUserDao extends ChunkedUserDao implements Closeable {
+
+  static final int MAGIC = 0x5544414F; // "UDAO"
+  static final int FORMAT_VERSION = 2;
+  // Fixed fields, then one live record count per possible chunk
+  static final int HEADER_SIZE = 64 + 4 * MAX_CHUNKS;
+
+  // Header layout
+  private static final int MAGIC_OFFSET = 0;
+  private static final int VERSION_OFFSET = 4;
+  private static final int RECORD_SIZE_OFFSET = 8;
+  private static final int COUNT_OFFSET = 12;
+  private static final int HIGHEST_ID_OFFSET = 16;
+  private static final int LIVE_RECORDS_OFFSET = 64;
+
+  private final FileChannel channel;
+  private final MappedByteBuffer header;
+  private final List<MappedByteBuffer> chunks = new ArrayList<>();
+
+  private MappedUserDao(FileChannel channel) throws IOException {
+    this.channel = channel;
+    boolean created = channel.size() == 0;
+    if (!created && channel.size() < HEADER_SIZE) {
+      // Mapping the header would grow a file that is not ours
+      throw new IOException("Not a user store (format " + FORMAT_VERSION + ")");
+    }
+    this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+    if (created) {
+      header.putInt(MAGIC_OFFSET, MAGIC);
+      header.putInt(VERSION_OFFSET, FORMAT_VERSION);
+      header.putInt(RECORD_SIZE_OFFSET, RECORD_SIZE);
+      header.putInt(COUNT_OFFSET, 0);
+      header.putInt(HIGHEST_ID_OFFSET, -1);
+    } else if (header.getInt(MAGIC_OFFSET) != MAGIC
+        || header.getInt(VERSION_OFFSET) != FORMAT_VERSION
+        || header.getInt(RECORD_SIZE_OFFSET) != RECORD_SIZE) {
+      throw new IOException("Not a user store (format " + FORMAT_VERSION + ")");
+    }
+  }
+
+  /**
+   * Opens the store at {@code file}, creating it if it does not exist.
+   */
+  public static MappedUserDao open(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      return new MappedUserDao(channel);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public int count() {
+    return header.getInt(COUNT_OFFSET);
+  }
+
+  @Override
+  void setCount(int count) {
+    header.putInt(COUNT_OFFSET, count);
+  }
+
+  @Override
+  int highestId() {
+    return header.getInt(HIGHEST_ID_OFFSET);
+  }
+
+  @Override
+  void setHighestId(int id) {
+    header.putInt(HIGHEST_ID_OFFSET, id);
+  }
+
+  @Override
+  int liveRecords(int index) {
+    return header.getInt(LIVE_RECORDS_OFFSET + index * 4);
+  }
+
+  @Override
+  void setLiveRecords(int index, int live) {
+    header.putInt(LIVE_RECORDS_OFFSET + index * 4, live);
+  }
+
+  @Override
+  User read(ByteBuffer chunk, int offset) {
+    return new OffHeapUserDao.UserView(chunk, offset);
+  }
+
+  /**
+   * Flushes dirty pages of the header and every mapped chunk to the storage device.
+   */
+  public void force() {
+    for (MappedByteBuffer chunk : chunks) {
+      if (chunk != null) {
+        chunk.force();
+      }
+    }
+    header.force();
+  }
+
+  @Override
+  public void close() throws IOException {
+    force();
+    chunks.clear();
+    channel.close();
+  }
+
+  @Override
+  ByteBuffer chunk(int index, boolean create) {
+    while (chunks.size() <= index) {
+      chunks.add(null);
+    }
+    MappedByteBuffer chunk = chunks.get(index);
+    if (chunk == null) {
+      long position = HEADER_SIZE + index * CHUNK_SIZE;
+      try {
+        if (!create && channel.size() <= position) {
+          return null;
+        }
+        // Mapping past the end grows the file; untouched pages stay holes.
+        chunk = channel.map(FileChannel.MapMode.READ_WRITE, position, CHUNK_SIZE);
+      } catch (IOException e) {
+        throw new IllegalStateException("Cannot map chunk " + index, e);
+      }
+      chunks.set(index, chunk);
+    }
+    return chunk;
+  }
+}
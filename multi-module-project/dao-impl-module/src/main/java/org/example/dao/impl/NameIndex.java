@@ -0,0 +1,88 @@
+package org.example.dao.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Secondary index from user name to ids. A hash map answers exact lookups in constant time and a
+ * sorted map over the same posting lists answers prefix lookups in name order. Null names are not
+ * indexed. Not thread-safe; owners update it under the same lock as their primary table.
+ */
+final class NameIndex {
+
+  private static final int[] NO_IDS = new int[0];
+
+  private final Map<String, Postings> exact = new HashMap<>();
+  private final NavigableMap<String, Postings> sorted = new TreeMap<>();
+
+  void add(String name, int id) {
+    if (name == null) {
+      return;
+    }
+    Postings postings = exact.get(name);
+    if (postings == null) {
+      postings = new Postings();
+      exact.put(name, postings);
+      sorted.put(name, postings);
+    }
+    postings.add(id);
+  }
+
+  void remove(String name, int id) {
+    if (name == null) {
+      return;
+    }
+    Postings postings = exact.get(name);
+    if (postings != null && postings.remove(id) && postings.size == 0) {
+      exact.remove(name);
+      sorted.remove(name);
+    }
+  }
+
+  int[] ids(String name) {
+    Postings postings = name == null ? null : exact.get(name);
+    return postings == null ? NO_IDS : Arrays.copyOf(postings.ids, postings.size);
+  }
+
+  /**
+   * Visits up to {@code limit} ids whose name starts with {@code prefix}, in name order.
+   */
+  void forEachPrefix(String prefix, int limit, IntObjectMap.IntObjectConsumer<String> action) {
+    int remaining = limit;
+    for (Map.Entry<String, Postings> entry : sorted.tailMap(prefix, true).entrySet()) {
+      if (remaining == 0 || !entry.getKey().startsWith(prefix)) {
+        return;
+      }
+      Postings postings = entry.getValue();
+      for (int i = 0; i < postings.size && remaining > 0; i++, remaining--) {
+        action.accept(postings.ids[i], entry.getKey());
+      }
+    }
+  }
+
+  private static final class Postings {
+
+    private int[] ids = new int[1];
+    private int size;
+
+    void add(int id) {
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+      }
+      ids[size++] = id;
+    }
+
+    boolean remove(int id) {
+      for (int i = 0; i < size; i++) {
+        if (ids[i] == id) {
+          ids[i] = ids[--size];
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package org.example.dao.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.example.entity.User;
+
+/**
+ * In-memory DAO that keeps user records in direct buffers outside the Java heap, so a large user table
+ * adds nothing for the garbage collector to trace. {@link #findById(int)} hands out short-lived
+ * {@link UserView} flyweights that read and write the record in place. Ids should be dense: every
+ * {@value #CHUNK_RECORDS} consecutive ids share one direct buffer.
+ * <p>
+ * There is no way to release the buffers early: the off-heap memory is reclaimed only once the DAO and
+ * every view handed out by it have been garbage collected. Size {@code -XX:MaxDirectMemorySize} for the
+ * largest table expected.
+ * <p>
+ * Like {@link UserDao} this class is not thread-safe.
+ */
+public class OffHeapUserDao extends ChunkedUserDao {
+
+  private final List<ByteBuffer> chunks = new ArrayList<>();
+  private int[] liveRecords = new int[0];
+  private int count;
+  private int highestId = -1;
+
+  public OffHeapUserDao() {
+  }
+
+  @Override
+  public int count() {
+    return count;
+  }
+
+  @Override
+  void setCount(int count) {
+    this.count = count;
+  }
+
+  @Override
+  int highestId() {
+    return highestId;
+  }
+
+  @Override
+  void setHighestId(int id) {
+    this.highestId = id;
+  }
+
+  @Override
+  int liveRecords(int index) {
+    return index < liveRecords.length ? liveRecords[index] : 0;
+  }
+
+  @Override
+  void setLiveRecords(int index, int live) {
+    if (index >= liveRecords.length) {
+      liveRecords = Arrays.copyOf(liveRecords, Math.max(index + 1, liveRecords.length * 2));
+    }
+    liveRecords[index] = live;
+  }
+
+  /**
+   * Total off-heap bytes reserved for records.
+   */
+  public long reservedBytes() {
+    long bytes = 0;
+    for (ByteBuffer chunk : chunks) {
+      if (chunk != null) {
+        bytes += chunk.capacity();
+      }
+    }
+    return bytes;
+  }
+
+  @Override
+  User read(ByteBuffer chunk, int offset) {
+    return new UserView(chunk, offset);
+  }
+
+  @Override
+  ByteBuffer chunk(int index, boolean create) {
+    while (chunks.size() <= index) {
+      chunks.add(null);
+    }
+    ByteBuffer chunk = chunks.get(index);
+    if (chunk == null && create) {
+      chunk = ByteBuffer.allocateDirect((int) CHUNK_SIZE);
+      chunks.set(index, chunk);
+    }
+    return chunk;
+  }
+
+  /**
+   * A {@link User} whose name lives in the record it was read from, off-heap or in a mapped file. The view holds no copy of
+   * the data: {@link #getName()} decodes the record on each call and {@link #setName(String)} writes
+   * through to it. Once its record is deleted, writing the view throws {@link IllegalStateException}
+   * instead of reviving the record, also if the id has been saved again since.
+   */
+  public static final class UserView extends User {
+
+    private final ByteBuffer chunk;
+    private final int offset;
+    private final byte generation;
+
+    UserView(ByteBuffer chunk, int offset) {
+      this.chunk = chunk;
+      this.offset = offset;
+      this.generation = generation(chunk, offset);
+    }
+
+    @Override
+    public String getName() {
+      return readName(chunk, offset);
+    }
+
+    @Override
+    public void setName(String name) {
+      byte[] bytes = encode(name);
+      if (!isLive(chunk, offset, generation)) {
+        throw new IllegalStateException("User record was deleted");
+      }
+      writeName(chunk, offset, bytes);
+    }
+
+    @Override
+    public String toString() {
+      return "User{" +
+          "name='" + getName() + '\'' +
+          '}';
+    }
+  }
+}
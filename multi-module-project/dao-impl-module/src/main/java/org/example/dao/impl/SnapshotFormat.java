@@ -0,0 +1,26 @@
+package org.example.dao.impl;
+
+/**
+ * Layout of a user snapshot file:
+ * <pre>
+ * header  : int magic "USNP", int format version, long record count
+ * block*  : int payload length, int record count, int CRC32C of payload, payload
+ * payload : (int id, short name length or -1 for null, UTF-8 name bytes)*
+ * end     : int 0, int 0, int 0
+ * </pre>
+ * All integers are big-endian. The record count in the header is patched in when the writer closes,
+ * so a reader can pre-size its table and detect a snapshot that was never finished.
+ */
+final class SnapshotFormat {
+
+  static final int MAGIC = 0x55534E50; // "USNP"
+  static final int FORMAT_VERSION = 1;
+  static final int HEADER_SIZE = 16;
+  static final int RECORD_COUNT_OFFSET = 8;
+  static final int BLOCK_HEADER_SIZE = 12;
+  static final int BLOCK_SIZE = 64 * 1024;
+  static final int UNFINISHED = -1;
+
+  private SnapshotFormat() {
+  }
+}
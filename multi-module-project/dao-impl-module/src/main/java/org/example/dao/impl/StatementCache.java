@@ -0,0 +1,73 @@
+package org.example.dao.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prepared statements of one connection, keyed by the fragments of a query template: the constant SQL
+ * between its placeholders, as returned by {@code StringTemplate.fragments()}. A template shape is
+ * prepared once; later calls only bind new values. Not thread-safe, like the connection itself.
+ */
+final class StatementCache implements AutoCloseable {
+
+  private final Connection connection;
+  private final Map<List<String>, PreparedStatement> statements = new HashMap<>();
+
+  StatementCache(Connection connection) {
+    this.connection = connection;
+  }
+
+  /**
+   * Returns the statement for {@code fragments} with {@code values} bound to its placeholders. The
+   * statement stays owned by the cache and must not be closed by the caller.
+   */
+  PreparedStatement bind(List<String> fragments, Object... values) throws SQLException {
+    if (values.length != fragments.size() - 1) {
+      throw new IllegalArgumentException(fragments.size() - 1 + " placeholders, " + values.length + " values");
+    }
+    PreparedStatement ps = statements.get(fragments);
+    if (ps == null) {
+      ps = connection.prepareStatement(String.join("?", fragments));
+      statements.put(fragments, ps);
+    }
+    for (int i = 0; i < values.length; i++) {
+      Object value = values[i];
+      if (value instanceof Integer) {
+        ps.setInt(i + 1, (Integer) value);
+      } else if (value instanceof String) {
+        ps.setString(i + 1, (String) value);
+      } else {
+        ps.setObject(i + 1, value);
+      }
+    }
+    return ps;
+  }
+
+  int size() {
+    return statements.size();
+  }
+
+  @Override
+  public void close() throws SQLException {
+    SQLException failure = null;
+    for (PreparedStatement ps : statements.values()) {
+      try {
+        ps.close();
+      } catch (SQLException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    statements.clear();
+    if (failure != null) {
+      throw failure;
+    }
+  }
+}
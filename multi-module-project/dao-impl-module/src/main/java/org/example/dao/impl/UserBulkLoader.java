@@ -0,0 +1,326 @@
+package org.example.dao.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.example.entity.User;
+
+/**
+ * Loads a CSV file of {@code id,name} lines into a {@link ConcurrentUserDao} using a fork-join pool.
+ * The file is cut into line-aligned chunks that are read with positional I/O and parsed in parallel;
+ * once the record count is known the DAO is created pre-sized and every chunk is inserted in parallel,
+ * which the lock stripes absorb without contention. A first line that does not start with an id is
+ * treated as a header. Names are UTF-8 and may not contain commas or line breaks.
+ * <p>
+ * An id that occurs more than once keeps its last line, as if the file had been loaded sequentially:
+ * ids that collided during the parallel insert are written again in file order afterwards. Each chunk
+ * drops its parsed lines as soon as they are inserted, so a file without duplicates never holds more
+ * than the DAO and the chunks in flight. Otherwise the chunks are parsed a second time, keeping only
+ * the lines of collided ids for the replay.
+ */
+public class UserBulkLoader {
+
+  private static final int DEFAULT_CHUNK_BYTES = 4 << 20;
+
+  private final ForkJoinPool pool;
+  private final int chunkBytes;
+
+  public UserBulkLoader() {
+    this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+  }
+
+  public UserBulkLoader(ForkJoinPool pool, int chunkBytes) {
+    if (chunkBytes <= 0) {
+      throw new IllegalArgumentException("chunkBytes=" + chunkBytes);
+    }
+    this.pool = pool;
+    this.chunkBytes = chunkBytes;
+  }
+
+  public Result loadCsv(Path file) throws IOException {
+    long start = System.nanoTime();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      List<Chunk> chunks = split(channel);
+      forEachParallel(chunks, chunk -> chunk.parse(channel));
+
+      int lines = 0;
+      for (Chunk chunk : chunks) {
+        lines += chunk.count;
+      }
+      ConcurrentUserDao dao = new ConcurrentUserDao(pool.getParallelism() * 4, lines);
+      forEachParallel(chunks, chunk -> chunk.insertInto(dao));
+
+      Set<Integer> duplicated = new HashSet<>();
+      int duplicates = 0;
+      for (Chunk chunk : chunks) {
+        for (int i = 0; i < chunk.duplicateCount; i++) {
+          duplicated.add(chunk.duplicates[i]);
+        }
+        duplicates += chunk.duplicateCount;
+      }
+      if (!duplicated.isEmpty()) {
+        forEachParallel(chunks, chunk -> chunk.retain(channel, duplicated));
+        for (Chunk chunk : chunks) {
+          chunk.replay(dao);
+        }
+      }
+      return new Result(dao, lines - duplicates, duplicates, channel.size(), System.nanoTime() - start);
+    }
+  }
+
+  private void forEachParallel(List<Chunk> chunks, ChunkAction action) throws IOException {
+    List<RecursiveAction> tasks = new ArrayList<>(chunks.size());
+    for (Chunk chunk : chunks) {
+      tasks.add(new RecursiveAction() {
+        @Override
+        protected void compute() {
+          try {
+            action.apply(chunk);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+      });
+    }
+    try {
+      pool.invoke(new RecursiveAction() {
+        @Override
+        protected void compute() {
+          invokeAll(tasks);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      // The pool may rethrow a copy that wraps the original exception.
+      Throwable cause = e;
+      while (cause instanceof UncheckedIOException) {
+        cause = cause.getCause();
+      }
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw e;
+    }
+  }
+
+  private interface ChunkAction {
+
+    void apply(Chunk chunk) throws IOException;
+  }
+
+  // Sequential pass that only reads a few bytes around each boundary to align it to a line start.
+  private List<Chunk> split(FileChannel channel) throws IOException {
+    long size = channel.size();
+    List<Chunk> chunks = new ArrayList<>();
+    ByteBuffer probe = ByteBuffer.allocate(256);
+    long from = 0;
+    while (from < size) {
+      long to = Math.min(size, from + chunkBytes);
+      while (to < size) {
+        probe.clear();
+        int read = channel.read(probe, to);
+        int newline = -1;
+        for (int i = 0; i < read && newline < 0; i++) {
+          if (probe.get(i) == '\n') {
+            newline = i;
+          }
+        }
+        if (newline >= 0) {
+          to += newline + 1;
+          break;
+        }
+        to += read;
+      }
+      to = Math.min(size, to);
+      if (to - from > Integer.MAX_VALUE - 8) {
+        throw new IOException("Line starting before offset " + to + " is too long");
+      }
+      chunks.add(new Chunk(from, (int) (to - from)));
+      from = to;
+    }
+    return chunks;
+  }
+
+  public static final class Result {
+
+    private final ConcurrentUserDao dao;
+    private final int records;
+    private final int duplicates;
+    private final long bytes;
+    private final long elapsedNanos;
+
+    Result(ConcurrentUserDao dao, int records, int duplicates, long bytes, long elapsedNanos) {
+      this.dao = dao;
+      this.records = records;
+      this.duplicates = duplicates;
+      this.bytes = bytes;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    public ConcurrentUserDao getDao() {
+      return dao;
+    }
+
+    /**
+     * Number of distinct ids loaded.
+     */
+    public int getRecords() {
+      return records;
+    }
+
+    /**
+     * Number of lines superseded by a later line with the same id.
+     */
+    public int getDuplicates() {
+      return duplicates;
+    }
+
+    public long getBytes() {
+      return bytes;
+    }
+
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    public double recordsPerSecond() {
+      return elapsedNanos == 0 ? 0 : records * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+      return "Result{" +
+          "records=" + records +
+          ", duplicates=" + duplicates +
+          ", bytes=" + bytes +
+          ", elapsedMillis=" + elapsedNanos / 1_000_000 +
+          ", recordsPerSecond=" + (long) recordsPerSecond() +
+          '}';
+    }
+  }
+
+  private static final class Chunk {
+
+    private final long position;
+    private final int length;
+    private int[] ids;
+    private User[] users;
+    private int count;
+    private int[] duplicates;
+    private int duplicateCount;
+
+    Chunk(long position, int length) {
+      this.position = position;
+      this.length = length;
+    }
+
+    void parse(FileChannel channel) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, position + buffer.position()) < 0) {
+          break;
+        }
+      }
+      byte[] bytes = buffer.array();
+      int limit = buffer.position();
+      ids = new int[16];
+      users = new User[16];
+      int i = 0;
+      while (i < limit) {
+        int lineEnd = i;
+        while (lineEnd < limit && bytes[lineEnd] != '\n') {
+          lineEnd++;
+        }
+        int end = lineEnd > i && bytes[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+        if (end > i) {
+          parseLine(bytes, i, end);
+        }
+        i = lineEnd + 1;
+      }
+    }
+
+    private void parseLine(byte[] bytes, int from, int to) throws IOException {
+      int i = from;
+      boolean negative = bytes[i] == '-';
+      if (negative) {
+        i++;
+      }
+      if (i == to || bytes[i] < '0' || bytes[i] > '9') {
+        if (position == 0 && count == 0 && from == 0) {
+          return; // header
+        }
+        throw new IOException("Malformed line at offset " + (position + from));
+      }
+      long id = 0;
+      while (i < to && bytes[i] >= '0' && bytes[i] <= '9') {
+        id = id * 10 + (bytes[i++] - '0');
+        if (id > (negative ? Integer.MAX_VALUE + 1L : Integer.MAX_VALUE)) {
+          throw new IOException("Id out of range at offset " + (position + from));
+        }
+      }
+      if (i == to || bytes[i] != ',') {
+        throw new IOException("Missing ',' at offset " + (position + from));
+      }
+      if (count == ids.length) {
+        ids = Arrays.copyOf(ids, count * 2);
+        users = Arrays.copyOf(users, count * 2);
+      }
+      ids[count] = (int) (negative ? -id : id);
+      users[count] = new User(new String(bytes, i + 1, to - i - 1, StandardCharsets.UTF_8));
+      count++;
+    }
+
+    // Records ids that were already stored; which line won is only settled by replay.
+    void insertInto(ConcurrentUserDao dao) {
+      duplicates = new int[0];
+      for (int i = 0; i < count; i++) {
+        if (dao.save(ids[i], users[i]) != null) {
+          if (duplicateCount == duplicates.length) {
+            duplicates = Arrays.copyOf(duplicates, Math.max(16, duplicateCount * 2));
+          }
+          duplicates[duplicateCount++] = ids[i];
+        }
+      }
+      release();
+    }
+
+    // Parses the chunk again and keeps only the lines of duplicated ids.
+    void retain(FileChannel channel, Set<Integer> duplicated) throws IOException {
+      count = 0;
+      parse(channel);
+      int kept = 0;
+      for (int i = 0; i < count; i++) {
+        if (duplicated.contains(ids[i])) {
+          ids[kept] = ids[i];
+          users[kept++] = users[i];
+        }
+      }
+      count = kept;
+      ids = Arrays.copyOf(ids, kept);
+      users = Arrays.copyOf(users, kept);
+    }
+
+    // Called for every chunk in file order, so the last line of each duplicated id is saved last.
+    void replay(ConcurrentUserDao dao) {
+      for (int i = 0; i < count; i++) {
+        dao.save(ids[i], users[i]);
+      }
+      release();
+    }
+
+    private void release() {
+      ids = null;
+      users = null;
+    }
+  }
+}
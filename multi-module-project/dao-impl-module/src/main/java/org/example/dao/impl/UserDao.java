@@ -1,17 +1,73 @@
 package org.example.dao.impl;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 import org.example.dao.Dao;
+import org.example.dao.Slice;
 import org.example.entity.User;
 
-public class UserDao implements Dao<User> {
+/**
+ * Single-threaded in-memory DAO. Use {@link ConcurrentUserDao} when readers and writers overlap.
+ * <p>
+ * Pages and scans read a sorted index of the stored ids that every insert and delete keeps up to date,
+ * so they cost and hold only the requested page, also right after a write.
+ */
+public class UserDao implements Dao<User>, UserNameLookup {
 
-  private final Map<Integer, User> users;
+  private final IntObjectMap<User> users;
+  private final IdIndex ids;
+  private final NameIndex names = new NameIndex();
+  private UserSnapshot snapshot;
 
+  /**
+   * Copies {@code users} into the DAO's own table. Unlike earlier versions, which wrapped the map, later
+   * changes to {@code users} are not seen by the DAO and writes to the DAO do not reach the map.
+   *
+   * @throws NullPointerException if {@code users} holds a {@code null} user, which the table cannot
+   *                              store
+   */
   public UserDao(Map<Integer, User> users) {
-    this.users = users;
+    this(users.size());
+    users.forEach(this::put);
+  }
+
+  private UserDao(int expectedSize) {
+    this.users = new IntObjectMap<>(expectedSize);
+    this.ids = new IdIndex(expectedSize);
+  }
+
+  /**
+   * Rebuilds a DAO from a snapshot written by {@link #writeSnapshot(Path)}; the table is sized from the
+   * snapshot header up front.
+   */
+  public static UserDao restore(Path snapshot) throws IOException {
+    try (UserSnapshotReader reader = new UserSnapshotReader(snapshot)) {
+      UserDao dao = new UserDao((int) reader.getRecords());
+      reader.read((user, id) -> dao.save(id, user));
+      return dao;
+    }
+  }
+
+  /**
+   * Writes every user to {@code snapshot} in id order, which keeps snapshots reproducible and makes a
+   * restore insert names in roughly sorted order. An existing snapshot is replaced atomically and only
+   * once the new one is complete.
+   */
+  public void writeSnapshot(Path snapshot) throws IOException {
+    int[] ids = users.keys();
+    Arrays.sort(ids);
+    UserSnapshotWriter.replace(snapshot, writer -> {
+      for (int id : ids) {
+        writer.write(id, users.get(id));
+      }
+    });
   }
 
   @Override
@@ -19,9 +75,125 @@ public class UserDao implements Dao<User> {
     return users.get(id);
   }
 
+  /**
+   * Returns an immutable list in id order shared between callers; it is rebuilt only after the table
+   * changes.
+   */
   @Override
   public List<User> findAll() {
-    return new ArrayList<>(users.values());
+    return snapshot().users();
+  }
+
+  @Override
+  public List<User> findPage(int offset, int limit) {
+    if (offset < 0 || limit < 0) {
+      throw new IllegalArgumentException("offset=" + offset + ", limit=" + limit);
+    }
+    return page(offset, limit);
+  }
+
+  @Override
+  public Slice<User> scan(int afterId, int limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException("limit=" + limit);
+    }
+    int from = ids.positionAfter(afterId);
+    List<User> content = page(from, limit);
+    int lastId = content.isEmpty() ? afterId : ids.get(from + content.size() - 1);
+    return new Slice<>(content, lastId, from + content.size() < ids.size());
+  }
+
+  private List<User> page(int from, int limit) {
+    int to = (int) Math.min(ids.size(), (long) from + limit);
+    List<User> page = new ArrayList<>(Math.max(0, to - from));
+    for (int i = from; i < to; i++) {
+      page.add(users.get(ids.get(i)));
+    }
+    return Collections.unmodifiableList(page);
+  }
+
+  @Override
+  public void forEach(Consumer<? super User> action) {
+    users.forEach(action);
+  }
+
+  @Override
+  public Spliterator<User> spliterator() {
+    return users.spliterator();
+  }
+
+  @Override
+  public List<User> findAllById(int[] ids) {
+    List<User> result = new ArrayList<>(ids.length);
+    for (int id : ids) {
+      User user = users.get(id);
+      if (user != null) {
+        result.add(user);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public List<User> findByName(String name) {
+    return findAllById(names.ids(name));
+  }
+
+  @Override
+  public List<User> findByNamePrefix(String prefix, int limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException("limit=" + limit);
+    }
+    List<User> result = new ArrayList<>();
+    names.forEachPrefix(prefix, limit, (id, name) -> result.add(users.get(id)));
+    return result;
+  }
+
+  @Override
+  public User save(int id, User user) {
+    return put(id, user);
+  }
+
+  // Not overridable, so the constructor can fill the table without leaking a partly built this.
+  private User put(int id, User user) {
+    User previous = users.put(id, user);
+    if (previous != null) {
+      names.remove(previous.getName(), id);
+    } else {
+      ids.add(id);
+    }
+    names.add(user.getName(), id);
+    return previous;
+  }
+
+  @Override
+  public boolean update(int id, User user) {
+    if (users.get(id) == null) {
+      return false;
+    }
+    put(id, user);
+    return true;
+  }
+
+  @Override
+  public boolean delete(int id) {
+    User previous = users.remove(id);
+    if (previous == null) {
+      return false;
+    }
+    ids.remove(id);
+    names.remove(previous.getName(), id);
+    return true;
+  }
+
+  private UserSnapshot snapshot() {
+    UserSnapshot current = snapshot;
+    int version = users.version();
+    if (current == null || current.version() != version) {
+      current = new UserSnapshot(version, users);
+      snapshot = current;
+    }
+    return current;
   }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package org.example.dao.impl;
+
+import java.util.List;
+import org.example.entity.User;
+
+/**
+ * Name queries answered from a maintained secondary index instead of a scan. Names are indexed when a
+ * user is saved or updated; changing a stored {@link User} in place without saving it again leaves
+ * the index stale. Keep names as {@link org.example.entity.ImmutableUser}s outside the DAO and save a
+ * fresh {@link org.example.entity.ImmutableUser#toUser()} to change one.
+ */
+public interface UserNameLookup {
+
+  List<User> findByName(String name);
+
+  /**
+   * Returns at most {@code limit} users whose name starts with {@code prefix}, in name order. A negative
+   * {@code limit} is rejected with {@link IllegalArgumentException}.
+   */
+  List<User> findByNamePrefix(String prefix, int limit);
+}
@@ -0,0 +1,35 @@
+package org.example.dao.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.example.entity.User;
+
+/**
+ * Immutable id-ordered copy of a user table, tagged with the table version it was built from. Shared
+ * by the in-memory DAOs for findAll.
+ */
+final class UserSnapshot {
+
+  private final long version;
+  private final List<User> users;
+
+  UserSnapshot(long version, IntObjectMap<User> table) {
+    this.version = version;
+    int[] ids = table.keys();
+    Arrays.sort(ids);
+    User[] users = new User[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      users[i] = table.get(ids[i]);
+    }
+    this.users = Collections.unmodifiableList(Arrays.asList(users));
+  }
+
+  long version() {
+    return version;
+  }
+
+  List<User> users() {
+    return users;
+  }
+}
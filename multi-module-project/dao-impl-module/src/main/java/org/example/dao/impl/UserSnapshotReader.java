@@ -0,0 +1,120 @@
+package org.example.dao.impl;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ObjIntConsumer;
+import java.util.zip.CRC32C;
+import org.example.entity.User;
+
+/**
+ * Reads a snapshot written by {@link UserSnapshotWriter}. Each block is read into a direct buffer and
+ * its checksum verified before any record of it is handed out, so a torn or corrupted file fails with
+ * an {@link IOException} instead of yielding bad users.
+ */
+public class UserSnapshotReader implements Closeable {
+
+  private final FileChannel channel;
+  private final long records;
+  private final ByteBuffer blockHeader = ByteBuffer.allocateDirect(SnapshotFormat.BLOCK_HEADER_SIZE);
+  private final ByteBuffer block = ByteBuffer.allocateDirect(SnapshotFormat.BLOCK_SIZE);
+  private final CRC32C crc = new CRC32C();
+  private byte[] name = new byte[256];
+
+  public UserSnapshotReader(Path file) throws IOException {
+    channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(SnapshotFormat.HEADER_SIZE);
+      readFully(header);
+      header.flip();
+      if (header.getInt() != SnapshotFormat.MAGIC) {
+        throw new IOException("Not a user snapshot: " + file);
+      }
+      int version = header.getInt();
+      if (version != SnapshotFormat.FORMAT_VERSION) {
+        throw new IOException("Unsupported snapshot version " + version + ": " + file);
+      }
+      records = header.getLong();
+      if (records == SnapshotFormat.UNFINISHED) {
+        throw new IOException("Snapshot was not closed properly: " + file);
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Number of records the snapshot holds, known before reading any block.
+   */
+  public long getRecords() {
+    return records;
+  }
+
+  /**
+   * Hands every record to {@code action} in file order and returns how many there were.
+   */
+  public long read(ObjIntConsumer<User> action) throws IOException {
+    long read = 0;
+    while (true) {
+      long offset = channel.position();
+      blockHeader.clear();
+      readFully(blockHeader);
+      blockHeader.flip();
+      int length = blockHeader.getInt();
+      int count = blockHeader.getInt();
+      int checksum = blockHeader.getInt();
+      if (length == 0 && count == 0) {
+        break;
+      }
+      if (length <= 0 || length > SnapshotFormat.BLOCK_SIZE || count <= 0) {
+        throw new IOException("Corrupt block header at offset " + offset);
+      }
+      block.clear().limit(length);
+      readFully(block);
+      block.flip();
+      crc.reset();
+      crc.update(block);
+      if ((int) crc.getValue() != checksum) {
+        throw new IOException("Checksum mismatch in block at offset " + offset);
+      }
+      block.rewind();
+      for (int i = 0; i < count; i++) {
+        int id = block.getInt();
+        int nameLength = block.getShort();
+        String value = null;
+        if (nameLength >= 0) {
+          if (name.length < nameLength) {
+            name = new byte[Math.max(nameLength, name.length * 2)];
+          }
+          block.get(name, 0, nameLength);
+          value = new String(name, 0, nameLength, StandardCharsets.UTF_8);
+        }
+        action.accept(new User(value), id);
+      }
+      read += count;
+    }
+    if (read != records) {
+      throw new IOException("Snapshot holds " + read + " records, header says " + records);
+    }
+    return read;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private void readFully(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new EOFException("Snapshot ends unexpectedly at offset " + channel.position());
+      }
+    }
+  }
+}
@@ -0,0 +1,201 @@
+package org.example.dao.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+import org.example.entity.User;
+
+/**
+ * Streams users into a checksummed, block-structured snapshot file (see {@link SnapshotFormat}).
+ * Records are packed into a direct buffer and written one block at a time; {@link #close()} writes the
+ * end marker, patches the record count into the header and forces the file to disk.
+ * <p>
+ * If {@link #write} failed or {@link #abort()} was called, closing leaves the header marked unfinished,
+ * so readers reject the partial file. The writer truncates its target; use
+ * {@link #replace(Path, Content)} to keep the previous snapshot until the new one is complete.
+ */
+public class UserSnapshotWriter implements Closeable {
+
+  private final FileChannel channel;
+  private final ByteBuffer block = ByteBuffer.allocateDirect(SnapshotFormat.BLOCK_SIZE);
+  private final ByteBuffer blockHeader = ByteBuffer.allocateDirect(SnapshotFormat.BLOCK_HEADER_SIZE);
+  private final CRC32C crc = new CRC32C();
+  private int blockRecords;
+  private long records;
+  private boolean failed;
+  private boolean closed;
+
+  /**
+   * Writes the records of a snapshot; see {@link #replace(Path, Content)}.
+   */
+  public interface Content {
+
+    void writeTo(UserSnapshotWriter writer) throws IOException;
+  }
+
+  public UserSnapshotWriter(Path file) throws IOException {
+    channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+    ByteBuffer header = ByteBuffer.allocate(SnapshotFormat.HEADER_SIZE);
+    header.putInt(SnapshotFormat.MAGIC).putInt(SnapshotFormat.FORMAT_VERSION)
+        .putLong(SnapshotFormat.UNFINISHED).flip();
+    try {
+      writeFully(header);
+    } catch (IOException | RuntimeException | Error e) {
+      // No caller gets a writer to close, so the channel would leak.
+      try {
+        channel.close();
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Writes {@code content} to a sibling temporary file, forces it and atomically moves it over
+   * {@code target}, then forces the directory so the rename survives a crash. If {@code content} fails,
+   * the temporary file is deleted, even if closing it fails too, and {@code target} is left untouched.
+   */
+  public static void replace(Path target, Content content) throws IOException {
+    Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+    UserSnapshotWriter writer;
+    try {
+      writer = new UserSnapshotWriter(temp);
+    } catch (IOException | RuntimeException | Error e) {
+      deleteAfterFailure(temp, e);
+      throw e;
+    }
+    try {
+      content.writeTo(writer);
+      writer.close();
+    } catch (IOException | RuntimeException | Error e) {
+      try {
+        writer.abort();
+      } catch (IOException | RuntimeException suppressed) {
+        e.addSuppressed(suppressed);
+      } finally {
+        deleteAfterFailure(temp, e);
+      }
+      throw e;
+    }
+    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    forceDirectory(target.toAbsolutePath().getParent());
+  }
+
+  // Keeps the original failure as the one thrown.
+  private static void deleteAfterFailure(Path temp, Throwable failure) {
+    try {
+      Files.deleteIfExists(temp);
+    } catch (IOException suppressed) {
+      failure.addSuppressed(suppressed);
+    }
+  }
+
+  static void forceDirectory(Path directory) throws IOException {
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(directory, StandardOpenOption.READ);
+    } catch (IOException e) {
+      // Some platforms, e.g. Windows, cannot open a directory; there the rename is durable on its own.
+      return;
+    }
+    try (FileChannel dir = channel) {
+      dir.force(true);
+    }
+  }
+
+  public void write(int id, User user) throws IOException {
+    try {
+      append(id, user);
+    } catch (IOException | RuntimeException e) {
+      failed = true;
+      throw e;
+    }
+  }
+
+  private void append(int id, User user) throws IOException {
+    byte[] name = user.getName() == null ? null : user.getName().getBytes(StandardCharsets.UTF_8);
+    if (name != null && name.length > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("Name of user " + id + " is longer than " + Short.MAX_VALUE + " bytes");
+    }
+    int size = 6 + (name == null ? 0 : name.length);
+    if (block.remaining() < size) {
+      flushBlock();
+    }
+    block.putInt(id);
+    block.putShort((short) (name == null ? -1 : name.length));
+    if (name != null) {
+      block.put(name);
+    }
+    blockRecords++;
+    records++;
+  }
+
+  public long getRecords() {
+    return records;
+  }
+
+  /**
+   * Closes the file without finishing it: the header stays marked unfinished.
+   */
+  public void abort() throws IOException {
+    failed = true;
+    close();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (failed) {
+      channel.close();
+      return;
+    }
+    try {
+      flushBlock();
+      blockHeader.clear();
+      blockHeader.putInt(0).putInt(0).putInt(0).flip();
+      writeFully(blockHeader);
+      ByteBuffer count = ByteBuffer.allocate(8);
+      count.putLong(records).flip();
+      while (count.hasRemaining()) {
+        channel.write(count, SnapshotFormat.RECORD_COUNT_OFFSET + count.position());
+      }
+      channel.force(true);
+    } finally {
+      channel.close();
+    }
+  }
+
+  private void flushBlock() throws IOException {
+    if (blockRecords == 0) {
+      return;
+    }
+    block.flip();
+    crc.reset();
+    crc.update(block);
+    block.rewind();
+    blockHeader.clear();
+    blockHeader.putInt(block.remaining()).putInt(blockRecords).putInt((int) crc.getValue()).flip();
+    writeFully(blockHeader);
+    writeFully(block);
+    block.clear();
+    blockRecords = 0;
+  }
+
+  private void writeFully(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+}
@@ -0,0 +1,346 @@
+package org.example.dao.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of user mutations with group commit. Appends only copy a record into an in-memory
+ * batch and return its log sequence number: the number of bytes appended since the log was opened
+ * before the last {@link #reset()}, including this record. LSNs only grow. A writer that needs the
+ * record on disk calls {@link #await(long)}: the first waiter becomes the leader, swaps the batch out,
+ * and writes (and, for {@link Durability#FSYNC}, forces) everything appended so far while later
+ * writers keep filling the next batch, so one {@code fsync} covers every writer that arrived during the
+ * previous one.
+ * <p>
+ * Record layout: int payload length, int CRC32C of payload, payload = byte op, int id, short name
+ * length or -1, UTF-8 name bytes. A torn record at the tail is discarded on open.
+ */
+public class WriteAheadLog implements Closeable {
+
+  public enum Durability {
+
+    /**
+     * {@link #await(long)} returns immediately; batches reach the OS once they grow past a threshold
+     * or on {@link #flush()}. A process crash can lose the latest writes.
+     */
+    BUFFERED,
+
+    /**
+     * Wait until the record was written to the OS. Survives a process crash, not a power loss.
+     */
+    WRITTEN,
+
+    /**
+     * Wait until the record was forced to the storage device.
+     */
+    FSYNC
+  }
+
+  public static final byte SAVE = 1;
+  public static final byte DELETE = 2;
+
+  private static final int RECORD_HEADER_SIZE = 8;
+  private static final int BUFFERED_FLUSH_THRESHOLD = 1 << 20;
+
+  private final FileChannel channel;
+  private final Durability durability;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition flushed = lock.newCondition();
+  private final CRC32C crc = new CRC32C();
+
+  // Guarded by lock
+  private ByteBuffer active = ByteBuffer.allocate(64 * 1024);
+  private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+  private long appendedLsn;
+  private long writtenLsn;
+  private long forcedLsn;
+  private boolean flushing;
+  private long flushes;
+  private long forces;
+  private IOException failure;
+
+  private WriteAheadLog(FileChannel channel, Durability durability, long end) throws IOException {
+    this.channel = channel;
+    this.durability = durability;
+    this.appendedLsn = end;
+    this.writtenLsn = end;
+    this.forcedLsn = end;
+    channel.truncate(end);
+    channel.position(end);
+  }
+
+  /**
+   * Replays the valid prefix of {@code file} into {@code handler}, drops a torn tail, and opens the log
+   * for appending after the last valid record.
+   */
+  public static WriteAheadLog open(Path file, Durability durability, Handler handler) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      long end = replay(channel, handler);
+      return new WriteAheadLog(channel, durability, end);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  public long appendSave(int id, String name) throws IOException {
+    return append(SAVE, id, name == null ? null : name.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public long appendDelete(int id) throws IOException {
+    return append(DELETE, id, null);
+  }
+
+  private long append(byte op, int id, byte[] name) throws IOException {
+    if (name != null && name.length > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("Name of user " + id + " is longer than " + Short.MAX_VALUE + " bytes");
+    }
+    int payload = 7 + (name == null ? 0 : name.length);
+    long lsn;
+    boolean flushNow;
+    lock.lock();
+    try {
+      checkFailure();
+      ensureCapacity(RECORD_HEADER_SIZE + payload);
+      int start = active.position();
+      active.putInt(payload).putInt(0).put(op).putInt(id).putShort((short) (name == null ? -1 : name.length));
+      if (name != null) {
+        active.put(name);
+      }
+      crc.reset();
+      crc.update(active.array(), active.arrayOffset() + start + RECORD_HEADER_SIZE, payload);
+      active.putInt(start + 4, (int) crc.getValue());
+      appendedLsn += RECORD_HEADER_SIZE + payload;
+      lsn = appendedLsn;
+      flushNow = durability == Durability.BUFFERED && active.position() >= BUFFERED_FLUSH_THRESHOLD;
+    } finally {
+      lock.unlock();
+    }
+    if (flushNow) {
+      sync(lsn, false);
+    }
+    return lsn;
+  }
+
+  /**
+   * Blocks until the record ending at {@code lsn} meets this log's durability level.
+   */
+  public void await(long lsn) throws IOException {
+    if (durability != Durability.BUFFERED) {
+      sync(lsn, durability == Durability.FSYNC);
+    }
+  }
+
+  /**
+   * Writes and forces everything appended so far, whatever the durability level.
+   */
+  public void flush() throws IOException {
+    long lsn;
+    lock.lock();
+    try {
+      lsn = appendedLsn;
+    } finally {
+      lock.unlock();
+    }
+    sync(lsn, true);
+  }
+
+  /**
+   * Number of batches written so far; with concurrent writers this is well below the number of records.
+   */
+  public long getFlushes() {
+    lock.lock();
+    try {
+      return flushes;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Number of times the log was forced to the storage device, not counting {@link #reset()}.
+   */
+  public long getForces() {
+    lock.lock();
+    try {
+      return forces;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Empties the log after everything appended so far was captured elsewhere, e.g. by a snapshot.
+   * Records that are still batched are dropped, and writers waiting for them return. Appends that run
+   * concurrently are ordered either before the reset, and dropped, or after it. LSNs keep growing, so
+   * LSNs handed out before stay comparable.
+   */
+  public void reset() throws IOException {
+    lock.lock();
+    try {
+      while (flushing) {
+        flushed.awaitUninterruptibly();
+      }
+      checkFailure();
+      active.clear();
+      channel.truncate(0);
+      channel.position(0);
+      channel.force(true);
+      writtenLsn = appendedLsn;
+      forcedLsn = appendedLsn;
+      flushed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      channel.close();
+    }
+  }
+
+  // Written and forced positions are tracked apart: a WRITTEN or BUFFERED flush advances only the
+  // former, so a later forcing caller still forces.
+  private void sync(long lsn, boolean force) throws IOException {
+    lock.lock();
+    try {
+      while ((force ? forcedLsn : writtenLsn) < lsn) {
+        checkFailure();
+        if (flushing) {
+          flushed.awaitUninterruptibly();
+          continue;
+        }
+        // Become the leader: take the whole current batch, if it is needed, and write it without
+        // holding the lock. A caller whose records are written but not forced only forces.
+        flushing = true;
+        ByteBuffer batch = null;
+        long end = writtenLsn;
+        if (writtenLsn < lsn) {
+          batch = active;
+          active = spare;
+          spare = null;
+          end = appendedLsn;
+        }
+        lock.unlock();
+        IOException error = null;
+        try {
+          if (batch != null) {
+            batch.flip();
+            while (batch.hasRemaining()) {
+              channel.write(batch);
+            }
+          }
+          if (force) {
+            channel.force(false);
+          }
+        } catch (IOException e) {
+          error = e;
+        } finally {
+          lock.lock();
+          if (batch != null) {
+            batch.clear();
+            spare = batch;
+          }
+          flushing = false;
+          if (error == null) {
+            if (batch != null) {
+              writtenLsn = end;
+              flushes++;
+            }
+            if (force) {
+              forcedLsn = end;
+              forces++;
+            }
+          } else {
+            failure = error;
+          }
+          flushed.signalAll();
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void ensureCapacity(int bytes) {
+    if (active.remaining() < bytes) {
+      ByteBuffer grown = ByteBuffer.allocate(Math.max(active.capacity() * 2, active.position() + bytes));
+      active.flip();
+      grown.put(active);
+      active = grown;
+    }
+  }
+
+  private void checkFailure() throws IOException {
+    if (failure != null) {
+      throw new IOException("Write-ahead log failed earlier", failure);
+    }
+  }
+
+  private static long replay(FileChannel channel, Handler handler) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+    ByteBuffer payload = ByteBuffer.allocate(7 + Short.MAX_VALUE);
+    CRC32C crc = new CRC32C();
+    long position = 0;
+    while (true) {
+      header.clear();
+      if (!readFully(channel, header, position)) {
+        return position;
+      }
+      header.flip();
+      int length = header.getInt();
+      int checksum = header.getInt();
+      if (length < 7 || length > payload.capacity()) {
+        return position;
+      }
+      payload.clear().limit(length);
+      if (!readFully(channel, payload, position + RECORD_HEADER_SIZE)) {
+        return position;
+      }
+      crc.reset();
+      crc.update(payload.array(), 0, length);
+      if ((int) crc.getValue() != checksum) {
+        return position;
+      }
+      payload.flip();
+      byte op = payload.get();
+      int id = payload.getInt();
+      int nameLength = payload.getShort();
+      String name = nameLength < 0 ? null
+          : new String(payload.array(), payload.position(), nameLength, StandardCharsets.UTF_8);
+      handler.apply(op, id, name);
+      position += RECORD_HEADER_SIZE + length;
+    }
+  }
+
+  private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Receives replayed records; {@code op} is {@link #SAVE} or {@link #DELETE}.
+   */
+  public interface Handler {
+
+    void apply(byte op, int id, String name) throws IOException;
+  }
+}
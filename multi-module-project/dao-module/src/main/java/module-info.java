@@ -1,3 +1,7 @@
 module org.example.daomodule {
+  requires org.example.entitymodule;
+
   exports org.example.dao;
-}
\ No newline at end of file
+  exports org.example.dao.async;
+  exports org.example.dao.cache;
+}
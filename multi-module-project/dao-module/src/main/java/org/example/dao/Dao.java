@@ -1,6 +1,11 @@
 package org.example.dao;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 public interface Dao<T> {
 
@@ -8,4 +13,94 @@ public interface Dao<T> {
 
   List<T> findAll();
 
-}
\ No newline at end of file
+  /**
+   * Returns at most {@code limit} entities starting at position {@code offset} in id order.
+   */
+  default List<T> findPage(int offset, int limit) {
+    checkPage(offset, limit);
+    List<T> all = findAll();
+    if (offset >= all.size()) {
+      return Collections.emptyList();
+    }
+    return all.subList(offset, (int) Math.min(all.size(), (long) offset + limit));
+  }
+
+  /**
+   * Returns at most {@code limit} entities whose id is strictly greater than {@code afterId}, in id
+   * order. Start with {@code Integer.MIN_VALUE}.
+   * <p>
+   * Entities expose no id to this interface, so the default is positional: {@code afterId} and {@link
+   * Slice#getLastId()} are positions in {@link #findAll()}, not ids, and it pages with {@link
+   * #findPage(int, int)}. That meets the contract above only for stores whose ids are exactly their
+   * positions {@code 0..n-1}, and a write between calls shifts later positions. Every other store must
+   * override it.
+   */
+  default Slice<T> scan(int afterId, int limit) {
+    checkPage(0, limit);
+    int from = afterId < 0 ? 0 : afterId == Integer.MAX_VALUE ? Integer.MAX_VALUE : afterId + 1;
+    List<T> page = findPage(from, (int) Math.min(Integer.MAX_VALUE, (long) limit + 1));
+    boolean hasNext = page.size() > limit;
+    List<T> content = hasNext ? page.subList(0, limit) : page;
+    int lastId = content.isEmpty() ? afterId : from + content.size() - 1;
+    return new Slice<>(content, lastId, hasNext);
+  }
+
+  /**
+   * Visits every entity without materializing a list.
+   */
+  default void forEach(Consumer<? super T> action) {
+    findAll().forEach(action);
+  }
+
+  default Spliterator<T> spliterator() {
+    return findAll().spliterator();
+  }
+
+  /**
+   * Resolves a batch of ids in one call. Ids without an entity are skipped, the rest keep the order
+   * of {@code ids}.
+   */
+  default List<T> findAllById(int[] ids) {
+    List<T> result = new ArrayList<>(ids.length);
+    for (int id : ids) {
+      T t = findById(id);
+      if (t != null) {
+        result.add(t);
+      }
+    }
+    return result;
+  }
+
+  default List<T> findAllById(IntStream ids) {
+    return findAllById(ids.toArray());
+  }
+
+  /**
+   * Inserts or replaces the entity stored under {@code id} and returns the previous one, if any.
+   * Read-only implementations throw {@link UnsupportedOperationException}.
+   */
+  default T save(int id, T entity) {
+    throw new UnsupportedOperationException("save");
+  }
+
+  /**
+   * Replaces the entity stored under {@code id}; returns {@code false} if there was none.
+   */
+  default boolean update(int id, T entity) {
+    throw new UnsupportedOperationException("update");
+  }
+
+  /**
+   * Removes the entity stored under {@code id}; returns {@code false} if there was none.
+   */
+  default boolean delete(int id) {
+    throw new UnsupportedOperationException("delete");
+  }
+
+  private static void checkPage(int offset, int limit) {
+    if (offset < 0 || limit < 0) {
+      throw new IllegalArgumentException("offset=" + offset + ", limit=" + limit);
+    }
+  }
+
+}
@@ -0,0 +1,14 @@
+package org.example.dao;
+
+/**
+ * Unchecked wrapper for a failure of the store behind a {@link Dao}, such as an
+ * {@link java.sql.SQLException}.
+ */
+public class DataAccessException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public DataAccessException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
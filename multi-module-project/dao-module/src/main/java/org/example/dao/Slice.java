@@ -0,0 +1,40 @@
+package org.example.dao;
+
+import java.util.List;
+
+/**
+ * One chunk of a keyset scan. Pass {@link #getLastId()} as {@code afterId} to fetch the next chunk.
+ */
+public final class Slice<T> {
+
+  private final List<T> content;
+  private final int lastId;
+  private final boolean hasNext;
+
+  public Slice(List<T> content, int lastId, boolean hasNext) {
+    this.content = content;
+    this.lastId = lastId;
+    this.hasNext = hasNext;
+  }
+
+  public List<T> getContent() {
+    return content;
+  }
+
+  public int getLastId() {
+    return lastId;
+  }
+
+  public boolean hasNext() {
+    return hasNext;
+  }
+
+  @Override
+  public String toString() {
+    return "Slice{" +
+        "size=" + content.size() +
+        ", lastId=" + lastId +
+        ", hasNext=" + hasNext +
+        '}';
+  }
+}
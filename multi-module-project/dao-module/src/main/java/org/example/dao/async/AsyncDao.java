@@ -0,0 +1,26 @@
+package org.example.dao.async;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.example.dao.Slice;
+
+/**
+ * Non-blocking counterpart of {@link org.example.dao.Dao}. Every call returns immediately and
+ * completes its future once the backend answered, so callers never park a platform thread on I/O.
+ */
+public interface AsyncDao<T> {
+
+  CompletableFuture<T> findById(int id);
+
+  CompletableFuture<List<T>> findAllById(int[] ids);
+
+  CompletableFuture<List<T>> findAll();
+
+  CompletableFuture<Slice<T>> scan(int afterId, int limit);
+
+  CompletableFuture<T> save(int id, T entity);
+
+  CompletableFuture<Boolean> update(int id, T entity);
+
+  CompletableFuture<Boolean> delete(int id);
+}
@@ -0,0 +1,154 @@
+package org.example.dao.async;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import org.example.dao.Dao;
+import org.example.dao.Slice;
+
+/**
+ * Runs a blocking {@link Dao} on an {@link Executor}, by default one virtual thread per call.
+ * Concurrent {@link #findById(int)} calls for the same id share a single backend lookup while it is in
+ * flight, so a hot key cannot stampede the backend. A write to an id detaches its in-flight lookup,
+ * so reads issued after the write completes never observe the older value.
+ */
+public class ExecutorAsyncDao<T> implements AsyncDao<T>, AutoCloseable {
+
+  private final Dao<T> delegate;
+  private final Executor executor;
+  private final boolean ownsExecutor;
+  private final ConcurrentMap<Integer, CompletableFuture<T>> inFlight = new ConcurrentHashMap<>();
+
+  public ExecutorAsyncDao(Dao<T> delegate, Executor executor) {
+    this(delegate, executor, false);
+  }
+
+  private ExecutorAsyncDao(Dao<T> delegate, Executor executor, boolean ownsExecutor) {
+    this.delegate = delegate;
+    this.executor = executor;
+    this.ownsExecutor = ownsExecutor;
+  }
+
+  /**
+   * Adapts {@code delegate} onto virtual threads. The modules compile for Java 9, so the executor is
+   * looked up reflectively; on runtimes before Java 21 a cached pool of daemon threads is used instead.
+   * {@link #close()} shuts the executor down.
+   */
+  public static <T> ExecutorAsyncDao<T> onVirtualThreads(Dao<T> delegate) {
+    return new ExecutorAsyncDao<>(delegate, newVirtualThreadPerTaskExecutor(), true);
+  }
+
+  @Override
+  public CompletableFuture<T> findById(int id) {
+    CompletableFuture<T> pending = inFlight.get(id);
+    if (pending == null) {
+      CompletableFuture<T> created = new CompletableFuture<>();
+      pending = inFlight.putIfAbsent(id, created);
+      if (pending == null) {
+        pending = created;
+        run(created, () -> delegate.findById(id), () -> inFlight.remove(id, created));
+      }
+    }
+    // Each caller gets its own dependent future, so one caller cancelling cannot fail the others.
+    return pending.copy();
+  }
+
+  @Override
+  public CompletableFuture<List<T>> findAllById(int[] ids) {
+    return submit(() -> delegate.findAllById(ids));
+  }
+
+  @Override
+  public CompletableFuture<List<T>> findAll() {
+    return submit(delegate::findAll);
+  }
+
+  @Override
+  public CompletableFuture<Slice<T>> scan(int afterId, int limit) {
+    return submit(() -> delegate.scan(afterId, limit));
+  }
+
+  @Override
+  public CompletableFuture<T> save(int id, T entity) {
+    return submit(() -> {
+      try {
+        return delegate.save(id, entity);
+      } finally {
+        inFlight.remove(id);
+      }
+    });
+  }
+
+  @Override
+  public CompletableFuture<Boolean> update(int id, T entity) {
+    return submit(() -> {
+      try {
+        return delegate.update(id, entity);
+      } finally {
+        inFlight.remove(id);
+      }
+    });
+  }
+
+  @Override
+  public CompletableFuture<Boolean> delete(int id) {
+    return submit(() -> {
+      try {
+        return delegate.delete(id);
+      } finally {
+        inFlight.remove(id);
+      }
+    });
+  }
+
+  @Override
+  public void close() {
+    if (ownsExecutor) {
+      ((ExecutorService) executor).shutdown();
+    }
+  }
+
+  private <R> CompletableFuture<R> submit(Supplier<R> call) {
+    CompletableFuture<R> future = new CompletableFuture<>();
+    run(future, call, () -> {
+    });
+    return future;
+  }
+
+  private <R> void run(CompletableFuture<R> future, Supplier<R> call, Runnable onDone) {
+    try {
+      executor.execute(() -> {
+        try {
+          future.complete(call.get());
+        } catch (Throwable e) {
+          future.completeExceptionally(e);
+        } finally {
+          onDone.run();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      onDone.run();
+      future.completeExceptionally(e);
+    }
+  }
+
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "async-dao");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+}
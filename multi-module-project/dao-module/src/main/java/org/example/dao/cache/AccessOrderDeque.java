@@ -0,0 +1,54 @@
+package org.example.dao.cache;
+
+/**
+ * Intrusive doubly-linked list of nodes, head = least recently used.
+ */
+final class AccessOrderDeque<T> {
+
+  private Node<T> head;
+  private Node<T> tail;
+  private int size;
+
+  int size() {
+    return size;
+  }
+
+  Node<T> peekFirst() {
+    return head;
+  }
+
+  void addLast(Node<T> node) {
+    node.prev = tail;
+    node.next = null;
+    if (tail == null) {
+      head = node;
+    } else {
+      tail.next = node;
+    }
+    tail = node;
+    size++;
+  }
+
+  void remove(Node<T> node) {
+    if (node.prev == null) {
+      head = node.next;
+    } else {
+      node.prev.next = node.next;
+    }
+    if (node.next == null) {
+      tail = node.prev;
+    } else {
+      node.next.prev = node.prev;
+    }
+    node.prev = null;
+    node.next = null;
+    size--;
+  }
+
+  void moveToBack(Node<T> node) {
+    if (node != tail) {
+      remove(node);
+      addLast(node);
+    }
+  }
+}
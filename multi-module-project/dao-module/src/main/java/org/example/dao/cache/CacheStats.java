@@ -0,0 +1,57 @@
+package org.example.dao.cache;
+
+/**
+ * Point-in-time counters of a {@link CachingDao}.
+ */
+public final class CacheStats {
+
+  private final long hits;
+  private final long misses;
+  private final long evictions;
+  private final long expirations;
+  private final long size;
+
+  CacheStats(long hits, long misses, long evictions, long expirations, long size) {
+    this.hits = hits;
+    this.misses = misses;
+    this.evictions = evictions;
+    this.expirations = expirations;
+    this.size = size;
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  public long getEvictions() {
+    return evictions;
+  }
+
+  public long getExpirations() {
+    return expirations;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public double hitRate() {
+    long requests = hits + misses;
+    return requests == 0 ? 1.0 : (double) hits / requests;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStats{" +
+        "hits=" + hits +
+        ", misses=" + misses +
+        ", evictions=" + evictions +
+        ", expirations=" + expirations +
+        ", size=" + size +
+        '}';
+  }
+}
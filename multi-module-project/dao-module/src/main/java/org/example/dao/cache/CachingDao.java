@@ -0,0 +1,285 @@
+package org.example.dao.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import org.example.dao.Dao;
+import org.example.dao.Slice;
+import org.example.util.Hashing;
+
+/**
+ * Read-through cache in front of any {@link Dao}. Point lookups ({@link #findById(int)} and the batch
+ * variants) are served from a bounded in-memory table; bulk reads (findAll, paging, scans) go straight
+ * to the delegate. Writes go to the delegate first and then invalidate the cached id, and a load that
+ * raced with a write is not cached, so a reader never re-caches a value older than the last write.
+ * <p>
+ * Hits read a concurrent map without locking. They are recorded in striped {@link ReadBuffer}s and
+ * replayed into the eviction policy in batches, by whichever reader first finds a buffer half full and
+ * the policy lock free, so readers never wait on each other. Loads, evictions and invalidations take
+ * the policy lock.
+ * <p>
+ * Build instances with {@link #builder(Dao)}.
+ */
+public class CachingDao<T> implements Dao<T> {
+
+  private final Dao<T> delegate;
+  private final long expireAfterWriteNanos;
+  private final boolean cacheMisses;
+  private final LongSupplier ticker;
+
+  // Changed only under lock; read without it.
+  private final ConcurrentHashMap<Integer, Node<T>> data = new ConcurrentHashMap<>();
+  private final ReadBuffer<T>[] readBuffers;
+  private final ReentrantLock lock = new ReentrantLock();
+  // Guarded by lock
+  private final EvictionPolicy<T> policy;
+  private volatile long writeGeneration;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+
+  private CachingDao(Builder<T> builder) {
+    this.delegate = builder.delegate;
+    this.expireAfterWriteNanos = builder.expireAfterWrite == null ? 0 : builder.expireAfterWrite.toNanos();
+    this.cacheMisses = builder.cacheMisses;
+    this.ticker = builder.ticker;
+    this.policy = EvictionPolicy.create(builder.eviction, builder.maximumSize);
+    this.readBuffers = newReadBuffers(Runtime.getRuntime().availableProcessors());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> ReadBuffer<T>[] newReadBuffers(int parallelism) {
+    int count = Integer.highestOneBit(Math.max(1, parallelism - 1)) << 1;
+    ReadBuffer<T>[] buffers = (ReadBuffer<T>[]) new ReadBuffer<?>[count];
+    for (int i = 0; i < buffers.length; i++) {
+      buffers[i] = new ReadBuffer<>();
+    }
+    return buffers;
+  }
+
+  public static <T> Builder<T> builder(Dao<T> delegate) {
+    return new Builder<>(delegate);
+  }
+
+  @Override
+  public T findById(int id) {
+    Node<T> node = data.get(id);
+    if (node != null) {
+      if (!isExpired(node)) {
+        recordAccess(node);
+        hits.increment();
+        return node.value;
+      }
+      expire(node);
+    }
+    long generation = writeGeneration;
+    misses.increment();
+    T value = delegate.findById(id);
+    if (value != null || cacheMisses) {
+      lock.lock();
+      try {
+        if (generation == writeGeneration && !data.containsKey(id)) {
+          drainReadBuffers();
+          add(new Node<>(id, value, ticker.getAsLong()));
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+    return value;
+  }
+
+  @Override
+  public List<T> findAll() {
+    return delegate.findAll();
+  }
+
+  @Override
+  public List<T> findPage(int offset, int limit) {
+    return delegate.findPage(offset, limit);
+  }
+
+  @Override
+  public Slice<T> scan(int afterId, int limit) {
+    return delegate.scan(afterId, limit);
+  }
+
+  @Override
+  public T save(int id, T entity) {
+    try {
+      return delegate.save(id, entity);
+    } finally {
+      invalidate(id);
+    }
+  }
+
+  @Override
+  public boolean update(int id, T entity) {
+    try {
+      return delegate.update(id, entity);
+    } finally {
+      invalidate(id);
+    }
+  }
+
+  @Override
+  public boolean delete(int id) {
+    try {
+      return delegate.delete(id);
+    } finally {
+      invalidate(id);
+    }
+  }
+
+  public void invalidate(int id) {
+    lock.lock();
+    try {
+      writeGeneration++;
+      Node<T> node = data.get(id);
+      if (node != null) {
+        drainReadBuffers();
+        remove(node);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void invalidateAll() {
+    lock.lock();
+    try {
+      writeGeneration++;
+      drainReadBuffers();
+      for (Node<T> node : data.values()) {
+        policy.onRemove(node);
+      }
+      data.clear();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public CacheStats stats() {
+    return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), data.size());
+  }
+
+  private boolean isExpired(Node<T> node) {
+    return expireAfterWriteNanos > 0 && ticker.getAsLong() - node.writeNanos >= expireAfterWriteNanos;
+  }
+
+  private void recordAccess(Node<T> node) {
+    int stripe = Hashing.index(System.identityHashCode(Thread.currentThread()), readBuffers.length);
+    ReadBuffer<T> buffer = readBuffers[stripe];
+    if (buffer.offer(node) && lock.tryLock()) {
+      try {
+        drainReadBuffers();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  // Caller holds lock. Accesses to nodes that have been removed meanwhile are ignored.
+  private void drainReadBuffers() {
+    for (ReadBuffer<T> buffer : readBuffers) {
+      buffer.drainTo(node -> {
+        if (data.get(node.key) == node) {
+          policy.onAccess(node);
+        }
+      });
+    }
+  }
+
+  private void expire(Node<T> node) {
+    lock.lock();
+    try {
+      if (data.get(node.key) == node) {
+        drainReadBuffers();
+        remove(node);
+        expirations.increment();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Caller holds lock.
+  private void add(Node<T> node) {
+    data.put(node.key, node);
+    Node<T> victim = policy.onAdd(node);
+    if (victim != null) {
+      remove(victim);
+      evictions.increment();
+    }
+  }
+
+  // Caller holds lock.
+  private void remove(Node<T> node) {
+    data.remove(node.key);
+    policy.onRemove(node);
+  }
+
+  public static final class Builder<T> {
+
+    private final Dao<T> delegate;
+    private long maximumSize = 10_000;
+    private Eviction eviction = Eviction.W_TINY_LFU;
+    private Duration expireAfterWrite;
+    private boolean cacheMisses;
+    private LongSupplier ticker = System::nanoTime;
+
+    private Builder(Dao<T> delegate) {
+      this.delegate = Objects.requireNonNull(delegate, "delegate");
+    }
+
+    public Builder<T> maximumSize(long maximumSize) {
+      if (maximumSize <= 0) {
+        throw new IllegalArgumentException("maximumSize=" + maximumSize);
+      }
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    public Builder<T> eviction(Eviction eviction) {
+      this.eviction = Objects.requireNonNull(eviction, "eviction");
+      return this;
+    }
+
+    /**
+     * Entries, including cached misses, are reloaded once they are older than {@code ttl}.
+     */
+    public Builder<T> expireAfterWrite(Duration ttl) {
+      if (ttl.isNegative() || ttl.isZero()) {
+        throw new IllegalArgumentException("ttl=" + ttl);
+      }
+      this.expireAfterWrite = ttl;
+      return this;
+    }
+
+    /**
+     * Remembers ids the delegate had no entity for, so repeated lookups of missing ids stay in memory.
+     */
+    public Builder<T> cacheMisses(boolean cacheMisses) {
+      this.cacheMisses = cacheMisses;
+      return this;
+    }
+
+    /**
+     * Time source in nanoseconds, for tests.
+     */
+    public Builder<T> ticker(LongSupplier ticker) {
+      this.ticker = Objects.requireNonNull(ticker, "ticker");
+      return this;
+    }
+
+    public CachingDao<T> build() {
+      return new CachingDao<>(this);
+    }
+  }
+}
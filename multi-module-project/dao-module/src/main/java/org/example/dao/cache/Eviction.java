@@ -0,0 +1,19 @@
+package org.example.dao.cache;
+
+/**
+ * Which entry {@link CachingDao} drops once it is full.
+ */
+public enum Eviction {
+
+  /**
+   * Least recently used.
+   */
+  LRU,
+
+  /**
+   * Window TinyLFU: a small LRU admission window in front of a segmented LRU main area. An entry leaving
+   * the window only displaces a main entry if a frequency sketch says it is used more often, which
+   * keeps one-off scans from flushing the hot set.
+   */
+  W_TINY_LFU
+}
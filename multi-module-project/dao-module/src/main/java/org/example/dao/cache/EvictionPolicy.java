@@ -0,0 +1,27 @@
+package org.example.dao.cache;
+
+/**
+ * Ordering strategy behind {@link CachingDao}. Callers hold the policy lock.
+ */
+interface EvictionPolicy<T> {
+
+  /**
+   * Records a new node and returns the node to evict to stay within bounds, or {@code null}.
+   */
+  Node<T> onAdd(Node<T> node);
+
+  void onAccess(Node<T> node);
+
+  void onRemove(Node<T> node);
+
+  static <T> EvictionPolicy<T> create(Eviction eviction, long maximumSize) {
+    switch (eviction) {
+      case LRU:
+        return new LruPolicy<>(maximumSize);
+      case W_TINY_LFU:
+        return new TinyLfuPolicy<>(maximumSize);
+      default:
+        throw new IllegalArgumentException("Unknown eviction: " + eviction);
+    }
+  }
+}
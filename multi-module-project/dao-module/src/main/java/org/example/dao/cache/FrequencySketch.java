@@ -0,0 +1,62 @@
+package org.example.dao.cache;
+
+import org.example.util.Hashing;
+
+/**
+ * Count-min sketch of saturating counters (capped at 15, one byte each) used by W-TinyLFU to
+ * estimate how often a key was seen recently. All counters are halved after a sample of
+ * {@code 10 * maximumSize} increments so old popularity decays.
+ */
+final class FrequencySketch {
+
+  private static final int[] SEEDS = {0x97CB3127, 0x2B16FE65, 0xC2B2AE35, 0x85EBCA6B};
+  private static final int MAX_COUNT = 15;
+
+  private final byte[] table;
+  private final int mask;
+  private final long sampleSize;
+  private long additions;
+
+  FrequencySketch(long maximumSize) {
+    int capacity = (int) Math.min(1 << 30, Math.max(16, Long.highestOneBit(maximumSize * 4 - 1) << 1));
+    table = new byte[capacity];
+    mask = capacity - 1;
+    sampleSize = Math.max(10, 10 * maximumSize);
+  }
+
+  void increment(int key) {
+    int hash = Hashing.spread(key);
+    boolean added = false;
+    for (int i = 0; i < SEEDS.length; i++) {
+      int index = indexOf(hash, i);
+      if (table[index] < MAX_COUNT) {
+        table[index]++;
+        added = true;
+      }
+    }
+    if (added && ++additions >= sampleSize) {
+      reset();
+    }
+  }
+
+  int frequency(int key) {
+    int hash = Hashing.spread(key);
+    int frequency = MAX_COUNT;
+    for (int i = 0; i < SEEDS.length; i++) {
+      frequency = Math.min(frequency, table[indexOf(hash, i)]);
+    }
+    return frequency;
+  }
+
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] >>>= 1;
+    }
+    additions >>>= 1;
+  }
+
+  private int indexOf(int hash, int i) {
+    int h = (hash + SEEDS[i]) * SEEDS[i];
+    return (h ^ (h >>> 16)) & mask;
+  }
+}
@@ -0,0 +1,27 @@
+package org.example.dao.cache;
+
+final class LruPolicy<T> implements EvictionPolicy<T> {
+
+  private final long maximumSize;
+  private final AccessOrderDeque<T> deque = new AccessOrderDeque<>();
+
+  LruPolicy(long maximumSize) {
+    this.maximumSize = maximumSize;
+  }
+
+  @Override
+  public Node<T> onAdd(Node<T> node) {
+    deque.addLast(node);
+    return deque.size() > maximumSize ? deque.peekFirst() : null;
+  }
+
+  @Override
+  public void onAccess(Node<T> node) {
+    deque.moveToBack(node);
+  }
+
+  @Override
+  public void onRemove(Node<T> node) {
+    deque.remove(node);
+  }
+}
@@ -0,0 +1,25 @@
+package org.example.dao.cache;
+
+/**
+ * Cache entry linked into one of the policy's access-order queues. A {@code null} value is a cached
+ * miss.
+ */
+final class Node<T> {
+
+  static final int WINDOW = 0;
+  static final int PROBATION = 1;
+  static final int PROTECTED = 2;
+
+  final int key;
+  T value;
+  long writeNanos;
+  int queue;
+  Node<T> prev;
+  Node<T> next;
+
+  Node(int key, T value, long writeNanos) {
+    this.key = key;
+    this.value = value;
+    this.writeNanos = writeNanos;
+  }
+}
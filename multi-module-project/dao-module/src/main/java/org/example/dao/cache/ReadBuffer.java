@@ -0,0 +1,51 @@
+package org.example.dao.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, lossy ring of recent cache hits. Readers append without locking; the cache replays the
+ * ring into its eviction policy under the policy lock. When the ring is full, or two readers race for
+ * a slot, the access is dropped: the policy only needs a representative sample.
+ */
+final class ReadBuffer<T> {
+
+  static final int SIZE = 16;
+  private static final int MASK = SIZE - 1;
+
+  private final AtomicReferenceArray<Node<T>> slots = new AtomicReferenceArray<>(SIZE);
+  private final AtomicLong writes = new AtomicLong();
+  // Written under the policy lock only.
+  private volatile long reads;
+
+  /**
+   * Records an access and returns {@code true} if the buffer is half full and should be drained.
+   */
+  boolean offer(Node<T> node) {
+    long reads = this.reads;
+    long writes = this.writes.get();
+    long pending = writes - reads;
+    if (pending < SIZE && this.writes.compareAndSet(writes, writes + 1)) {
+      slots.lazySet((int) writes & MASK, node);
+      pending++;
+    }
+    return pending >= SIZE / 2;
+  }
+
+  /**
+   * Hands the buffered accesses to {@code action} in order. Caller holds the policy lock.
+   */
+  void drainTo(Consumer<Node<T>> action) {
+    long writes = this.writes.get();
+    long reads = this.reads;
+    for (; reads < writes; reads++) {
+      // Null if the reader claimed the slot but has not stored into it yet; that access is lost.
+      Node<T> node = slots.getAndSet((int) reads & MASK, null);
+      if (node != null) {
+        action.accept(node);
+      }
+    }
+    this.reads = reads;
+  }
+}
@@ -0,0 +1,83 @@
+package org.example.dao.cache;
+
+/**
+ * W-TinyLFU with a 1% admission window and an 80/20 protected/probation split of the main area.
+ */
+final class TinyLfuPolicy<T> implements EvictionPolicy<T> {
+
+  private final long maximumSize;
+  private final long windowMaximum;
+  private final long protectedMaximum;
+  private final AccessOrderDeque<T> window = new AccessOrderDeque<>();
+  private final AccessOrderDeque<T> probation = new AccessOrderDeque<>();
+  private final AccessOrderDeque<T> protectedQueue = new AccessOrderDeque<>();
+  private final FrequencySketch sketch;
+
+  TinyLfuPolicy(long maximumSize) {
+    this.maximumSize = maximumSize;
+    this.windowMaximum = Math.max(1, maximumSize / 100);
+    this.protectedMaximum = (long) ((maximumSize - windowMaximum) * 0.8);
+    this.sketch = new FrequencySketch(maximumSize);
+  }
+
+  @Override
+  public Node<T> onAdd(Node<T> node) {
+    sketch.increment(node.key);
+    node.queue = Node.WINDOW;
+    window.addLast(node);
+    if (window.size() <= windowMaximum) {
+      return null;
+    }
+    // The window overflows into probation; if the cache is now full, the candidate has to beat the
+    // probation victim on frequency to stay.
+    Node<T> candidate = window.peekFirst();
+    window.remove(candidate);
+    candidate.queue = Node.PROBATION;
+    probation.addLast(candidate);
+    if (window.size() + probation.size() + protectedQueue.size() <= maximumSize) {
+      return null;
+    }
+    Node<T> victim = probation.peekFirst();
+    if (victim == candidate) {
+      return candidate;
+    }
+    return sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+  }
+
+  @Override
+  public void onAccess(Node<T> node) {
+    sketch.increment(node.key);
+    switch (node.queue) {
+      case Node.WINDOW:
+        window.moveToBack(node);
+        break;
+      case Node.PROBATION:
+        probation.remove(node);
+        node.queue = Node.PROTECTED;
+        protectedQueue.addLast(node);
+        if (protectedQueue.size() > protectedMaximum) {
+          Node<T> demoted = protectedQueue.peekFirst();
+          protectedQueue.remove(demoted);
+          demoted.queue = Node.PROBATION;
+          probation.addLast(demoted);
+        }
+        break;
+      default:
+        protectedQueue.moveToBack(node);
+    }
+  }
+
+  @Override
+  public void onRemove(Node<T> node) {
+    switch (node.queue) {
+      case Node.WINDOW:
+        window.remove(node);
+        break;
+      case Node.PROBATION:
+        probation.remove(node);
+        break;
+      default:
+        protectedQueue.remove(node);
+    }
+  }
+}
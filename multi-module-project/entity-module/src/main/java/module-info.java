@@ -1,3 +1,4 @@
 module org.example.entitymodule {
   exports org.example.entity;
+  exports org.example.util;
 }
\ No newline at end of file
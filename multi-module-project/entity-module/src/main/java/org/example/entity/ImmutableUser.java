@@ -0,0 +1,102 @@
+package org.example.entity;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import org.example.util.Hashing;
+
+/**
+ * Immutable user value whose name is deduplicated: every instance with the same name shares one
+ * {@code String}, which the JVM already stores as Latin-1 bytes when possible and whose hash code it
+ * caches. The name is a final field, so instances are safely published without synchronization and
+ * can be shared freely between threads and used as map keys.
+ * <p>
+ * It is not a {@link User}, whose name can change. Convert at the boundary: {@link #from(User)} when
+ * reading from a DAO, {@link #toUser()} when saving, which keeps the canonical name.
+ */
+public final class ImmutableUser {
+
+  // Weak pool, striped to spread contention: a name is dropped once no instance refers to it.
+  private static final int STRIPES = 64;
+  private static final Map<String, WeakReference<String>>[] NAMES = newStripes();
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, WeakReference<String>>[] newStripes() {
+    Map<String, WeakReference<String>>[] stripes =
+        (Map<String, WeakReference<String>>[]) new Map<?, ?>[STRIPES];
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new WeakHashMap<>();
+    }
+    return stripes;
+  }
+
+  private final String name;
+
+  private ImmutableUser(String name) {
+    this.name = name;
+  }
+
+  public static ImmutableUser of(String name) {
+    return new ImmutableUser(dedupe(name));
+  }
+
+  public static ImmutableUser from(User user) {
+    return of(user.getName());
+  }
+
+  /**
+   * Returns the canonical instance of {@code name}. The pool holds names weakly: a name stays canonical
+   * as long as some instance refers to it, and names of users that are gone can be collected.
+   */
+  static String dedupe(String name) {
+    if (name == null) {
+      return null;
+    }
+    Map<String, WeakReference<String>> stripe = NAMES[Hashing.index(name.hashCode(), STRIPES)];
+    synchronized (stripe) {
+      WeakReference<String> ref = stripe.get(name);
+      String canonical = ref == null ? null : ref.get();
+      if (canonical == null) {
+        stripe.put(name, new WeakReference<>(name));
+        canonical = name;
+      }
+      return canonical;
+    }
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns a new mutable {@link User} with the same, canonical name.
+   */
+  public User toUser() {
+    return new User(name);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ImmutableUser)) {
+      return false;
+    }
+    // Names are canonical, so identity is enough.
+    return name == ((ImmutableUser) o).name;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(name);
+  }
+
+  @Override
+  public String toString() {
+    return "ImmutableUser{" +
+        "name='" + name + '\'' +
+        '}';
+  }
+}
@@ -0,0 +1,26 @@
+package org.example.util;
+
+/**
+ * Hash spreading shared by the striped locks, pools and open-addressing tables of the project.
+ */
+public final class Hashing {
+
+  private Hashing() {
+  }
+
+  /**
+   * Multiplies {@code h} by the 32-bit golden ratio and folds the high half into the low half, so
+   * every input bit affects the low bits that tables index by.
+   */
+  public static int spread(int h) {
+    h *= 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Slot of {@code h} in a table of {@code length} slots; {@code length} must be a power of two.
+   */
+  public static int index(int h, int length) {
+    return spread(h) & (length - 1);
+  }
+}
@@ -1,20 +1,30 @@
 package org.example;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.example.dao.Dao;
+import org.example.dao.impl.UserBulkLoader;
 import org.example.dao.impl.UserDao;
 import org.example.entity.User;
 
 @Slf4j
 public class Application {
 
-  public static void main(String[] args) {
+  public static void main(String[] args) throws IOException {
+    if (args.length > 0) {
+      // Bulk-load a CSV file of "id,name" lines in parallel
+      UserBulkLoader.Result result = new UserBulkLoader().loadCsv(Paths.get(args[0]));
+      log.info("Loaded {} users from {} in {} ms ({} records/s)", result.getRecords(), args[0],
+          result.getElapsedNanos() / 1_000_000, (long) result.recordsPerSecond());
+      return;
+    }
     Map<Integer, User> users = new HashMap<>();
     users.put(1, new User("Julie"));
     users.put(2, new User("David"));
     Dao<User> userDao = new UserDao(users);
     userDao.findAll().forEach(user -> log.info("{}", user));
   }
-}
\ No newline at end of file
+}
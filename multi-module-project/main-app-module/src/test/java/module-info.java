@@ -1,7 +1,10 @@
+// H2 has no module descriptor; the tests only need it resolved so DriverManager finds its driver
+@SuppressWarnings("requires-automatic")
 module org.example.mainappmodule {
   // Basic dependency
   requires org.example.daoimplmodule;
   requires org.slf4j;
+  requires com.h2database;
   // Transitive dependency
   requires transitive org.junit.jupiter;
   // Static dependency
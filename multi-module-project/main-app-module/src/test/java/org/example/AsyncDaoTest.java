@@ -0,0 +1,67 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.dao.async.ExecutorAsyncDao;
+import org.example.dao.impl.ConcurrentUserDao;
+import org.example.entity.User;
+import org.junit.jupiter.api.Test;
+
+public class AsyncDaoTest {
+
+  @Test
+  public void test_coalescesConcurrentLookups() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger lookups = new AtomicInteger();
+    ConcurrentUserDao backend = new ConcurrentUserDao(new HashMap<>()) {
+      @Override
+      public User findById(int id) {
+        lookups.incrementAndGet();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return super.findById(id);
+      }
+    };
+    backend.save(1, new User("Julie"));
+
+    try (ExecutorAsyncDao<User> userDao = ExecutorAsyncDao.onVirtualThreads(backend)) {
+      List<CompletableFuture<User>> futures = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        futures.add(userDao.findById(1));
+      }
+      futures.get(0).cancel(true);
+      release.countDown();
+      for (int i = 1; i < futures.size(); i++) {
+        assertEquals("Julie", futures.get(i).get(5, TimeUnit.SECONDS).getName());
+      }
+      assertEquals(1, lookups.get());
+
+      assertEquals("Julie", userDao.save(1, new User("David")).get(5, TimeUnit.SECONDS).getName());
+      assertEquals("David", userDao.findById(1).get(5, TimeUnit.SECONDS).getName());
+      assertEquals(2, lookups.get());
+    }
+  }
+
+  @Test
+  public void test_writes() throws Exception {
+    try (ExecutorAsyncDao<User> userDao = ExecutorAsyncDao.onVirtualThreads(new ConcurrentUserDao())) {
+      userDao.save(1, new User("Julie")).get(5, TimeUnit.SECONDS);
+      assertTrue(userDao.update(1, new User("David")).get(5, TimeUnit.SECONDS));
+      assertTrue(userDao.delete(1).get(5, TimeUnit.SECONDS));
+      assertFalse(userDao.delete(1).get(5, TimeUnit.SECONDS));
+      assertEquals(0, userDao.findAll().get(5, TimeUnit.SECONDS).size());
+    }
+  }
+}
@@ -0,0 +1,177 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.example.dao.Dao;
+import org.example.dao.Slice;
+import org.example.dao.cache.CacheStats;
+import org.example.dao.cache.CachingDao;
+import org.example.dao.cache.Eviction;
+import org.example.dao.impl.ConcurrentUserDao;
+import org.example.dao.impl.UserDao;
+import org.example.entity.User;
+import org.junit.jupiter.api.Test;
+
+public class CachingDaoTest {
+
+  @Test
+  public void test_readThrough() {
+    CountingDao backend = new CountingDao(100);
+    CachingDao<User> userDao = CachingDao.builder(backend).maximumSize(10).build();
+
+    User first = userDao.findById(1);
+    assertEquals(first, userDao.findById(1));
+    assertEquals(1, backend.lookups.get());
+
+    userDao.save(1, new User("Julie"));
+    assertEquals("Julie", userDao.findById(1).getName());
+    assertEquals(2, backend.lookups.get());
+
+    CacheStats stats = userDao.stats();
+    assertEquals(1, stats.getHits());
+    assertEquals(2, stats.getMisses());
+    assertEquals(1, stats.getSize());
+  }
+
+  @Test
+  public void test_lru() {
+    CountingDao backend = new CountingDao(100);
+    CachingDao<User> userDao = CachingDao.builder(backend).maximumSize(2).eviction(Eviction.LRU).build();
+
+    userDao.findById(1);
+    userDao.findById(2);
+    userDao.findById(1);
+    userDao.findById(3); // evicts 2
+    backend.lookups.set(0);
+    userDao.findById(1);
+    userDao.findById(3);
+    assertEquals(0, backend.lookups.get());
+    userDao.findById(2);
+    assertEquals(1, backend.lookups.get());
+    assertEquals(2, userDao.stats().getEvictions());
+  }
+
+  @Test
+  public void test_tinyLfu_resistsScans() {
+    CountingDao backend = new CountingDao(100_000);
+    CachingDao<User> userDao = CachingDao.builder(backend).maximumSize(100).build();
+
+    for (int round = 0; round < 10; round++) {
+      for (int id = 0; id < 50; id++) {
+        userDao.findById(id);
+      }
+    }
+    for (int id = 1_000; id < 11_000; id++) {
+      userDao.findById(id);
+    }
+    backend.lookups.set(0);
+    for (int id = 0; id < 50; id++) {
+      userDao.findById(id);
+    }
+    assertTrue(backend.lookups.get() < 5, "hot set was flushed: " + backend.lookups.get());
+  }
+
+  @Test
+  public void test_expiryAndNegativeCaching() {
+    AtomicLong now = new AtomicLong();
+    CountingDao backend = new CountingDao(10);
+    CachingDao<User> userDao = CachingDao.builder(backend)
+        .expireAfterWrite(Duration.ofSeconds(1))
+        .cacheMisses(true)
+        .ticker(now::get)
+        .build();
+
+    assertNull(userDao.findById(42));
+    assertNull(userDao.findById(42));
+    assertEquals(1, backend.lookups.get());
+
+    now.addAndGet(Duration.ofSeconds(1).toNanos());
+    assertNull(userDao.findById(42));
+    assertEquals(2, backend.lookups.get());
+    assertEquals(1, userDao.stats().getExpirations());
+  }
+
+  /**
+   * Readers, a writer and eviction run concurrently; readers see the latest write of each id and the
+   * policy stays within bounds
+   */
+  @Test
+  public void test_concurrentReadersAndWriter() throws Exception {
+    CachingDao<User> userDao = CachingDao.builder(new ConcurrentUserDao(Users.named(0, 1_000))).maximumSize(200).build();
+    int threads = 8;
+    int perThread = 50_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads - 1; t++) {
+        int seed = t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < perThread; i++) {
+            int id = (i * 31 + seed) % (i % 4 == 0 ? 1_000 : 100);
+            assertTrue(userDao.findById(id).getName().startsWith("user" + id));
+          }
+        }));
+      }
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < perThread; i++) {
+          int id = i % 100;
+          userDao.save(id, new User("user" + id + "-v" + i));
+        }
+      }));
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for (int id = 0; id < 100; id++) {
+      assertEquals("user" + id + "-v" + (perThread - 100 + id), userDao.findById(id).getName());
+    }
+    CacheStats stats = userDao.stats();
+    assertEquals((threads - 1L) * perThread + 100, stats.getHits() + stats.getMisses());
+    assertTrue(stats.getSize() <= 200, "size " + stats.getSize());
+  }
+
+  private static final class CountingDao implements Dao<User> {
+
+    private final Dao<User> delegate;
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    CountingDao(int size) {
+      delegate = new UserDao(Users.named(0, size));
+    }
+
+    @Override
+    public User findById(int id) {
+      lookups.incrementAndGet();
+      return delegate.findById(id);
+    }
+
+    @Override
+    public List<User> findAll() {
+      return delegate.findAll();
+    }
+
+    @Override
+    public Slice<User> scan(int afterId, int limit) {
+      return delegate.scan(afterId, limit);
+    }
+
+    @Override
+    public User save(int id, User user) {
+      return delegate.save(id, user);
+    }
+  }
+}
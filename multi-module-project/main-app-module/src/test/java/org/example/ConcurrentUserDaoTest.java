@@ -0,0 +1,212 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.example.dao.Dao;
+import org.example.dao.Slice;
+import org.example.dao.impl.ConcurrentUserDao;
+import org.example.entity.User;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentUserDaoTest {
+
+  private static final int THREADS = 8;
+
+  @Test
+  public void test_crud() {
+    Dao<User> userDao = new ConcurrentUserDao();
+    User julie = new User("Julie");
+    User david = new User("David");
+
+    assertNull(userDao.save(1, julie));
+    assertFalse(userDao.update(2, david));
+    assertSame(julie, userDao.save(1, david));
+    assertTrue(userDao.update(1, julie));
+    assertSame(julie, userDao.findById(1));
+    assertEquals(1, userDao.findAll().size());
+    assertTrue(userDao.delete(1));
+    assertFalse(userDao.delete(1));
+    assertNull(userDao.findById(1));
+    assertEquals(0, userDao.findAll().size());
+  }
+
+  /**
+   * Scans resume after their last id while writes land between pages: ids inserted behind the cursor
+   * are skipped, ids deleted or inserted ahead of it are respected.
+   */
+  @Test
+  public void test_scan_interleavedWithWrites() {
+    Dao<User> userDao = new ConcurrentUserDao();
+    for (int id = 0; id < 1_000; id += 2) {
+      userDao.save(id, new User(Integer.toString(id)));
+    }
+
+    List<Integer> seen = new ArrayList<>();
+    Slice<User> slice = userDao.scan(Integer.MIN_VALUE, 50);
+    for (int page = 1; ; page++) {
+      for (User user : slice.getContent()) {
+        seen.add(Integer.parseInt(user.getName()));
+      }
+      if (!slice.hasNext()) {
+        break;
+      }
+      userDao.save(-page, new User(Integer.toString(-page)));
+      userDao.save(1_001 + page * 2, new User(Integer.toString(1_001 + page * 2)));
+      userDao.delete(slice.getLastId() + 2);
+      slice = userDao.scan(slice.getLastId(), 50);
+    }
+
+    List<Integer> expected = new ArrayList<>();
+    for (User user : userDao.findAll()) {
+      int id = Integer.parseInt(user.getName());
+      if (id >= 0) {
+        expected.add(id);
+      }
+    }
+    assertEquals(expected, seen);
+    assertEquals(userDao.findAll(), userDao.findPage(0, Integer.MAX_VALUE));
+    assertEquals(userDao.findAll().subList(10, 15), userDao.findPage(10, 5));
+  }
+
+  /**
+   * Stale name index entries do not count against the limit: a partition keeps yielding candidates
+   * until enough of them still carry the name
+   */
+  @Test
+  public void test_findByNamePrefix_skipsStaleEntries() {
+    ConcurrentUserDao userDao = new ConcurrentUserDao(4);
+    for (int id = 0; id < 220; id++) {
+      userDao.save(id, new User((id < 200 ? "prefix-a" : "prefix-b") + id));
+    }
+    // Renaming stored instances behind the DAO's back leaves their index entries stale
+    for (int id = 0; id < 200; id++) {
+      userDao.findById(id).setName("renamed" + id);
+    }
+
+    List<User> found = userDao.findByNamePrefix("prefix", 10);
+    assertEquals(10, found.size());
+    for (User user : found) {
+      assertTrue(user.getName().startsWith("prefix-b"), user.getName());
+    }
+    assertEquals(20, userDao.findByNamePrefix("prefix", 100).size());
+  }
+
+  @Test
+  public void test_disjointWriters() throws Exception {
+    Dao<User> userDao = new ConcurrentUserDao();
+    int perThread = 20_000;
+    runConcurrently(t -> () -> {
+      for (int i = 0; i < perThread; i++) {
+        int id = i * THREADS + t;
+        userDao.save(id, new User("user" + id));
+      }
+      return null;
+    });
+
+    assertEquals(THREADS * perThread, userDao.findAll().size());
+    for (int id = 0; id < THREADS * perThread; id++) {
+      assertEquals("user" + id, userDao.findById(id).getName());
+    }
+  }
+
+  /**
+   * Every writer upserts its own instances onto the same few keys. If save is linearizable, each
+   * instance except the final one per key is returned as "previous" exactly once.
+   */
+  @Test
+  public void test_save_isLinearizable() throws Exception {
+    Dao<User> userDao = new ConcurrentUserDao();
+    int keys = 4;
+    int perThread = 10_000;
+    List<List<User>> previous = runConcurrently(t -> () -> {
+      List<User> replaced = new ArrayList<>();
+      for (int i = 0; i < perThread; i++) {
+        User user = new User(t + "-" + i);
+        User old = userDao.save(i % keys, user);
+        if (old != null) {
+          replaced.add(old);
+        }
+        assertTrue(userDao.findById(i % keys) != null);
+      }
+      return replaced;
+    });
+
+    Set<User> replaced = Collections.newSetFromMap(new IdentityHashMap<>());
+    int replacedCount = 0;
+    for (List<User> list : previous) {
+      replaced.addAll(list);
+      replacedCount += list.size();
+    }
+    assertEquals(replacedCount, replaced.size());
+    assertEquals(THREADS * perThread - keys, replacedCount);
+    for (int key = 0; key < keys; key++) {
+      assertFalse(replaced.contains(userDao.findById(key)));
+    }
+  }
+
+  @Test
+  public void test_delete_succeedsOnce() throws Exception {
+    Dao<User> userDao = new ConcurrentUserDao();
+    int keys = 1_000;
+    Users.save(userDao, 0, keys, 1);
+    List<Integer> deleted = runConcurrently(t -> () -> {
+      int count = 0;
+      for (int id = 0; id < keys; id++) {
+        if (userDao.delete(id)) {
+          count++;
+        }
+      }
+      return count;
+    });
+
+    int total = 0;
+    for (int count : deleted) {
+      total += count;
+    }
+    assertEquals(keys, total);
+    assertEquals(0, userDao.findAll().size());
+  }
+
+  private interface TaskFactory<T> {
+
+    Callable<T> create(int thread);
+  }
+
+  private static <T> List<T> runConcurrently(TaskFactory<T> factory) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<T>> futures = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        Callable<T> task = factory.create(t);
+        futures.add(executor.submit(() -> {
+          start.await();
+          return task.call();
+        }));
+      }
+      start.countDown();
+      List<T> results = new ArrayList<>();
+      for (Future<T> future : futures) {
+        results.add(future.get(30, TimeUnit.SECONDS));
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import org.example.dao.impl.DurableUserDao;
+import org.example.dao.impl.WriteAheadLog.Durability;
+import org.example.entity.User;
+
+/**
+ * Measures writes per second through {@link DurableUserDao} for each durability level and writer
+ * count. With {@link Durability#FSYNC} the writes per flush column shows how many writers each group
+ * commit absorbed.
+ * <p>
+ * Run with: {@code DurableUserDaoBenchmark [seconds per run]}
+ */
+public class DurableUserDaoBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    long seconds = args.length > 0 ? Long.parseLong(args[0]) : 3;
+    System.out.printf("%-10s %8s %14s %16s%n", "durability", "threads", "writes/s", "writes/flush");
+    for (Durability durability : Durability.values()) {
+      for (int threads : new int[]{1, 4, 16, 64}) {
+        run(durability, threads, seconds);
+      }
+    }
+  }
+
+  private static void run(Durability durability, int threads, long seconds) throws Exception {
+    Path dir = Files.createTempDirectory("wal-bench");
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    LongAdder writes = new LongAdder();
+    AtomicBoolean running = new AtomicBoolean(true);
+    CountDownLatch start = new CountDownLatch(1);
+    try (DurableUserDao userDao = DurableUserDao.open(dir, durability)) {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        futures.add(executor.submit(() -> {
+          start.await();
+          User user = new User("user" + thread);
+          for (int i = 0; running.get(); i++) {
+            userDao.save(thread * 1_000_000 + i % 1_000_000, user);
+            writes.increment();
+          }
+          return null;
+        }));
+      }
+      long begin = System.nanoTime();
+      start.countDown();
+      TimeUnit.SECONDS.sleep(seconds);
+      running.set(false);
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      double elapsed = (System.nanoTime() - begin) / 1e9;
+      long total = writes.sum();
+      System.out.printf("%-10s %8d %14.0f %16.1f%n", durability, threads, total / elapsed,
+          (double) total / Math.max(1, userDao.getLogFlushes()));
+    } finally {
+      executor.shutdown();
+      deleteRecursively(dir);
+    }
+  }
+
+  private static void deleteRecursively(Path dir) throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(dir);
+  }
+}
@@ -0,0 +1,123 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.example.dao.impl.DurableUserDao;
+import org.example.dao.impl.WriteAheadLog;
+import org.example.dao.impl.WriteAheadLog.Durability;
+import org.example.entity.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DurableUserDaoTest {
+
+  @Test
+  public void test_recoversFromLog(@TempDir Path dir) throws IOException {
+    try (DurableUserDao userDao = DurableUserDao.open(dir, Durability.WRITTEN)) {
+      userDao.save(1, new User("Julie"));
+      userDao.save(2, new User("David"));
+      userDao.update(2, new User("Dave"));
+      userDao.save(3, new User("Eve"));
+      userDao.delete(3);
+    }
+    try (DurableUserDao userDao = DurableUserDao.open(dir, Durability.WRITTEN)) {
+      assertEquals("Julie", userDao.findById(1).getName());
+      assertEquals("Dave", userDao.findById(2).getName());
+      assertNull(userDao.findById(3));
+      assertEquals(1, userDao.findByName("Dave").size());
+    }
+  }
+
+  @Test
+  public void test_replaysLogOntoCheckpoint(@TempDir Path dir) throws IOException {
+    try (DurableUserDao userDao = DurableUserDao.open(dir, Durability.FSYNC)) {
+      Users.save(userDao, 0, 1_000, 1);
+      userDao.checkpoint();
+      assertEquals(0, Files.size(dir.resolve("users.wal")));
+      userDao.delete(0);
+      userDao.save(1_000, new User("user1000"));
+    }
+    // A torn record at the tail, as left by a crash in the middle of a write
+    Files.write(dir.resolve("users.wal"), new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+    try (DurableUserDao userDao = DurableUserDao.open(dir, Durability.FSYNC)) {
+      assertEquals(1_000, userDao.findAll().size());
+      assertNull(userDao.findById(0));
+      assertEquals("user1000", userDao.findById(1_000).getName());
+      userDao.save(1_001, new User("user1001"));
+    }
+    try (DurableUserDao userDao = DurableUserDao.open(dir, Durability.FSYNC)) {
+      assertEquals("user1001", userDao.findById(1_001).getName());
+    }
+  }
+
+  /**
+   * flush forces records that an earlier WRITTEN-level await only wrote, and a reset releases writers
+   * waiting for records it dropped
+   */
+  @Test
+  public void test_writeAheadLog(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("users.wal");
+    try (WriteAheadLog log = WriteAheadLog.open(file, Durability.WRITTEN, (op, id, name) -> { })) {
+      log.await(log.appendSave(1, "Julie"));
+      assertEquals(0, log.getForces());
+      log.flush();
+      assertEquals(1, log.getForces());
+      log.flush();
+      assertEquals(1, log.getForces());
+    }
+
+    try (WriteAheadLog log = WriteAheadLog.open(file, Durability.FSYNC, (op, id, name) -> { })) {
+      long lsn = log.appendSave(2, "David");
+      log.reset();
+      assertTimeoutPreemptively(Duration.ofSeconds(5), () -> log.await(lsn));
+      long next = log.appendDelete(2);
+      assertTrue(next > lsn);
+      log.await(next);
+    }
+    List<Integer> replayed = new ArrayList<>();
+    WriteAheadLog.open(file, Durability.FSYNC, (op, id, name) -> replayed.add(id)).close();
+    assertEquals(List.of(2), replayed);
+  }
+
+  @Test
+  public void test_groupCommit(@TempDir Path dir) throws Exception {
+    int threads = 16;
+    int perThread = 200;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try (DurableUserDao userDao = DurableUserDao.open(dir, Durability.FSYNC)) {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < perThread; i++) {
+            userDao.save(thread * perThread + i, new User("user" + i));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      assertTrue(userDao.getLogFlushes() < threads * perThread,
+          "flushes=" + userDao.getLogFlushes());
+    } finally {
+      executor.shutdown();
+    }
+    try (DurableUserDao userDao = DurableUserDao.open(dir, Durability.FSYNC)) {
+      assertEquals(threads * perThread, userDao.findAll().size());
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.lang.ref.WeakReference;
+import org.example.dao.impl.ConcurrentUserDao;
+import org.example.entity.ImmutableUser;
+import org.example.entity.User;
+import org.junit.jupiter.api.Test;
+
+public class ImmutableUserTest {
+
+  @Test
+  public void test_namesAreDeduplicated() {
+    String julie = new String(new char[]{'J', 'u', 'l', 'i', 'e'});
+    ImmutableUser first = ImmutableUser.of("Julie");
+    ImmutableUser second = ImmutableUser.of(julie);
+
+    assertNotSame(first, second);
+    assertSame(first.getName(), second.getName());
+    assertEquals(first, second);
+    assertEquals(first.hashCode(), second.hashCode());
+    assertEquals(first, ImmutableUser.from(new User("Julie")));
+    assertSame(first.getName(), first.toUser().getName());
+  }
+
+  /**
+   * The pool does not keep names of users that are no longer referenced
+   */
+  @Test
+  public void test_unusedNamesAreCollected() throws InterruptedException {
+    ImmutableUser user = ImmutableUser.of("Temporary" + System.nanoTime());
+    WeakReference<String> name = new WeakReference<>(user.getName());
+    user = null;
+    for (int i = 0; i < 50 && name.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(name.get());
+  }
+
+  @Test
+  public void test_acceptedByDao() {
+    ConcurrentUserDao userDao = new ConcurrentUserDao();
+    userDao.save(1, ImmutableUser.of("Julie").toUser());
+    userDao.save(2, ImmutableUser.from(new User(new String("Julie"))).toUser());
+    assertSame(userDao.findById(1).getName(), userDao.findById(2).getName());
+    assertEquals(2, userDao.findByName("Julie").size());
+    assertEquals(ImmutableUser.of("Julie"), ImmutableUser.from(userDao.findById(2)));
+  }
+}
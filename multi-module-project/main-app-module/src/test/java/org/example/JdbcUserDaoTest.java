@@ -0,0 +1,97 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import org.example.dao.Slice;
+import org.example.dao.impl.JdbcUserDao;
+import org.example.entity.User;
+import org.junit.jupiter.api.Test;
+
+public class JdbcUserDaoTest {
+
+  @Test
+  public void test_crudAndStatementReuse() throws SQLException {
+    try (JdbcUserDao dao = JdbcUserDao.open(DriverManager.getConnection("jdbc:h2:mem:"))) {
+      for (int id = 1; id <= 1_000; id++) {
+        assertNull(dao.save(id, new User("user" + id)));
+      }
+      assertEquals("user1", dao.save(1, new User("alice")).getName());
+      assertTrue(dao.update(2, new User("al_ce")));
+      assertFalse(dao.update(5_000, new User("nobody")));
+      assertTrue(dao.delete(3));
+      assertFalse(dao.delete(3));
+
+      assertEquals("alice", dao.findById(1).getName());
+      assertNull(dao.findById(3));
+      assertEquals(999, dao.findAll().size());
+      assertEquals("user4", dao.findPage(2, 10).get(0).getName());
+      assertEquals(List.of("al_ce", "alice"), names(dao.findByNamePrefix("al", 10)));
+      assertEquals(List.of("al_ce"), names(dao.findByNamePrefix("al_", 10)));
+      assertEquals(1, dao.findByName("alice").size());
+
+      int seen = 0;
+      Slice<User> slice = dao.scan(Integer.MIN_VALUE, 100);
+      while (true) {
+        seen += slice.getContent().size();
+        if (!slice.hasNext()) {
+          break;
+        }
+        slice = dao.scan(slice.getLastId(), 100);
+      }
+      assertEquals(999, seen);
+
+      // One statement per query shape, however many times each ran
+      assertEquals(10, dao.getPreparedStatements());
+    }
+  }
+
+  /**
+   * Saves of the same new ids from several connections upsert instead of failing on the primary key
+   */
+  @Test
+  public void test_concurrentSaves() throws Exception {
+    String url = "jdbc:h2:mem:concurrentSaves;DB_CLOSE_DELAY=-1";
+    int threads = 4;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try (JdbcUserDao reader = JdbcUserDao.open(DriverManager.getConnection(url))) {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        futures.add(executor.submit(() -> {
+          int replaced = 0;
+          try (JdbcUserDao dao = JdbcUserDao.open(DriverManager.getConnection(url))) {
+            for (int id = 0; id < 200; id++) {
+              if (dao.save(id, new User("user" + id + "-" + thread)) != null) {
+                replaced++;
+              }
+            }
+          }
+          return replaced;
+        }));
+      }
+      int replaced = 0;
+      for (Future<Integer> future : futures) {
+        replaced += future.get();
+      }
+      assertEquals(200, reader.findAll().size());
+      assertEquals((threads - 1) * 200, replaced);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static List<String> names(List<User> users) {
+    return users.stream().map(User::getName).collect(Collectors.toList());
+  }
+}
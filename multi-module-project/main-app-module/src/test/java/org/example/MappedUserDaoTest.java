@@ -0,0 +1,119 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.example.dao.Slice;
+import org.example.dao.impl.MappedUserDao;
+import org.example.dao.impl.OffHeapUserDao;
+import org.example.entity.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedUserDaoTest {
+
+  @Test
+  public void test_reopen(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("users.db");
+    try (MappedUserDao userDao = MappedUserDao.open(file)) {
+      assertNull(userDao.save(1, new User("Julie")));
+      assertNull(userDao.save(2, new User("David")));
+      assertNull(userDao.save(200_000, new User("Zoë")));
+      assertEquals("Julie", userDao.save(1, new User("Julia")).getName());
+      assertTrue(userDao.delete(2));
+      assertFalse(userDao.update(2, new User("David")));
+    }
+
+    try (MappedUserDao userDao = MappedUserDao.open(file)) {
+      assertEquals(2, userDao.count());
+      assertEquals("Julia", userDao.findById(1).getName());
+      assertNull(userDao.findById(2));
+      assertEquals("Zoë", userDao.findById(200_000).getName());
+      assertNull(userDao.findById(200_001));
+      assertNull(userDao.findById(-1));
+      assertEquals(2, userDao.findAll().size());
+
+      // Lookups hand out views over the mapped record instead of decoding it
+      User view = userDao.findById(1);
+      assertTrue(view instanceof OffHeapUserDao.UserView);
+      view.setName("Juliette");
+      assertEquals("Juliette", userDao.findById(1).getName());
+    }
+
+    try (MappedUserDao userDao = MappedUserDao.open(file)) {
+      assertEquals("Juliette", userDao.findById(1).getName());
+    }
+  }
+
+  @Test
+  public void test_scan(@TempDir Path dir) throws IOException {
+    try (MappedUserDao userDao = MappedUserDao.open(dir.resolve("users.db"))) {
+      Users.save(userDao, 0, 100, 2);
+      Slice<User> slice = userDao.scan(Integer.MIN_VALUE, 10);
+      assertEquals(10, slice.getContent().size());
+      assertEquals(18, slice.getLastId());
+      assertTrue(slice.hasNext());
+
+      slice = userDao.scan(90, 10);
+      assertEquals(4, slice.getContent().size());
+      assertEquals("user92", slice.getContent().get(0).getName());
+      assertFalse(slice.hasNext());
+      assertEquals(0, userDao.scan(Integer.MAX_VALUE, 10).getContent().size());
+    }
+  }
+
+  /**
+   * Walks skip chunks without live records, also after reopening a file with holes between sparse ids
+   */
+  @Test
+  public void test_sparseIds(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("users.db");
+    try (MappedUserDao userDao = MappedUserDao.open(file)) {
+      userDao.save(3, new User("a"));
+      userDao.save(5_000_000, new User("b"));
+      userDao.save(5_000_001, new User("c"));
+      userDao.delete(5_000_001);
+      userDao.save(20_000_000, new User("d"));
+    }
+
+    try (MappedUserDao userDao = MappedUserDao.open(file)) {
+      assertEquals(3, userDao.findAll().size());
+      Slice<User> slice = userDao.scan(3, 1);
+      assertEquals("b", slice.getContent().get(0).getName());
+      assertEquals(5_000_000, slice.getLastId());
+      assertTrue(slice.hasNext());
+      slice = userDao.scan(5_000_000, 10);
+      assertEquals(1, slice.getContent().size());
+      assertEquals(20_000_000, slice.getLastId());
+      assertFalse(slice.hasNext());
+
+      userDao.delete(20_000_000);
+      userDao.save(20_000_001, new User("e"));
+      assertEquals(1, userDao.scan(5_000_000, 10).getContent().size());
+      assertEquals("e", userDao.findAll().get(2).getName());
+    }
+  }
+
+  @Test
+  public void test_rejectsForeignFileAndLongNames(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("foreign.db");
+    Files.write(file, new byte[128]);
+    assertThrows(IOException.class, () -> MappedUserDao.open(file));
+    assertEquals(128, Files.size(file));
+
+    try (MappedUserDao userDao = MappedUserDao.open(dir.resolve("users.db"))) {
+      StringBuilder name = new StringBuilder();
+      for (int i = 0; i < 61; i++) {
+        name.append('x');
+      }
+      assertThrows(IllegalArgumentException.class, () -> userDao.save(1, new User(name.toString())));
+      assertThrows(IllegalArgumentException.class, () -> userDao.save(-1, new User("Eve")));
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.example.dao.Slice;
+import org.example.dao.impl.OffHeapUserDao;
+import org.example.entity.User;
+import org.junit.jupiter.api.Test;
+
+public class OffHeapUserDaoTest {
+
+  @Test
+  public void test_flyweightViews() {
+    OffHeapUserDao userDao = new OffHeapUserDao();
+    Users.save(userDao, 0, 100_000, 1);
+    assertEquals(100_000, userDao.count());
+    assertEquals(2 * (1 << 16) * 64L, userDao.reservedBytes());
+
+    User view = userDao.findById(70_000);
+    assertTrue(view instanceof OffHeapUserDao.UserView);
+    assertEquals("user70000", view.getName());
+
+    view.setName("Julie");
+    assertEquals("Julie", userDao.findById(70_000).getName());
+    assertEquals("Julie", userDao.save(70_000, new User("David")).getName());
+    assertEquals("David", view.getName());
+
+    assertTrue(userDao.delete(70_000));
+    assertNull(userDao.findById(70_000));
+    assertFalse(userDao.update(70_000, new User("Eve")));
+    assertEquals(99_999, userDao.findAll().size());
+
+    // A stale view neither revives its record nor writes into a record saved under the same id later.
+    assertThrows(IllegalStateException.class, () -> view.setName("Eve"));
+    assertNull(userDao.findById(70_000));
+    userDao.save(70_000, new User("Mallory"));
+    assertThrows(IllegalStateException.class, () -> view.setName("Eve"));
+    assertEquals("Mallory", userDao.findById(70_000).getName());
+    assertEquals(100_000, userDao.count());
+    assertTrue(userDao.delete(70_000));
+
+    Slice<User> slice = userDao.scan(69_998, 2);
+    assertEquals("user69999", slice.getContent().get(0).getName());
+    assertEquals("user70001", slice.getContent().get(1).getName());
+    assertTrue(slice.hasNext());
+  }
+}
@@ -0,0 +1,79 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dao.impl.ConcurrentUserDao;
+import org.example.dao.impl.UserBulkLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Slf4j
+public class UserBulkLoaderTest {
+
+  @Test
+  public void test_loadCsv(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("users.csv");
+    int records = 200_000;
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      writer.write("id,name\n");
+      for (int id = 0; id < records; id++) {
+        writer.write(id + ",user" + id + (id % 3 == 0 ? "\r\n" : "\n"));
+      }
+      writer.write("-5,Zoë");
+    }
+
+    // Small chunks so that many boundaries fall inside lines
+    UserBulkLoader.Result result = new UserBulkLoader(ForkJoinPool.commonPool(), 4_099).loadCsv(file);
+    log.info("{}", result);
+
+    ConcurrentUserDao userDao = result.getDao();
+    assertEquals(records + 1, result.getRecords());
+    assertEquals(records + 1, userDao.findAll().size());
+    assertEquals("user0", userDao.findById(0).getName());
+    assertEquals("user12345", userDao.findById(12_345).getName());
+    assertEquals("user199998", userDao.findById(199_998).getName());
+    assertEquals("Zoë", userDao.findById(-5).getName());
+  }
+
+  /**
+   * Ids repeated in later chunks keep their last line and are counted once
+   */
+  @Test
+  public void test_duplicateIds(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("users.csv");
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      for (int id = 0; id < 10_000; id++) {
+        writer.write(id + ",a" + id + "\n");
+      }
+      for (int id = 0; id < 10_000; id += 7) {
+        writer.write(id + ",b" + id + "\n");
+      }
+      writer.write("14,c14\n");
+    }
+
+    UserBulkLoader.Result result = new UserBulkLoader(ForkJoinPool.commonPool(), 1_024).loadCsv(file);
+    ConcurrentUserDao userDao = result.getDao();
+    assertEquals(10_000, result.getRecords());
+    assertEquals(1_429 + 1, result.getDuplicates());
+    assertEquals(10_000, userDao.findAll().size());
+    for (int id = 0; id < 10_000; id++) {
+      String expected = id == 14 ? "c14" : (id % 7 == 0 ? "b" : "a") + id;
+      assertEquals(expected, userDao.findById(id).getName());
+    }
+  }
+
+  @Test
+  public void test_malformed(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("users.csv");
+    Files.write(file, "1,Julie\nDavid\n".getBytes(StandardCharsets.UTF_8));
+    assertThrows(IOException.class, () -> new UserBulkLoader().loadCsv(file));
+  }
+}
@@ -1,10 +1,25 @@
 package org.example;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 import lombok.extern.slf4j.Slf4j;
 import org.example.dao.Dao;
+import org.example.dao.Slice;
+import org.example.dao.impl.ConcurrentUserDao;
 import org.example.dao.impl.UserDao;
+import org.example.dao.impl.UserNameLookup;
 import org.example.entity.User;
 import org.junit.jupiter.api.Test;
 
@@ -19,4 +34,163 @@ public class UserDaoTest {
     Dao<User> userDao = new UserDao(users);
     userDao.findAll().forEach(user -> log.info("{}", user));
   }
+
+  @Test
+  public void test_findAllById() {
+    Map<Integer, User> users = Users.named(-500, 10_000);
+    Dao<User> userDao = new UserDao(users);
+
+    List<User> found = userDao.findAllById(new int[]{3, 99_999, -7, 3});
+    assertEquals(3, found.size());
+    assertSame(users.get(3), found.get(0));
+    assertSame(users.get(-7), found.get(1));
+    assertSame(users.get(3), found.get(2));
+
+    assertEquals(10_000, userDao.findAllById(IntStream.range(0, 10_000)).size());
+    assertEquals(users.size(), userDao.findAll().size());
+    assertNull(userDao.findById(10_000));
+  }
+
+  @Test
+  public void test_findAll_snapshot() {
+    Dao<User> userDao = new UserDao(Users.named(0, 1_000));
+
+    List<User> snapshot = userDao.findAll();
+    assertSame(snapshot, userDao.findAll());
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.add(new User("Eve")));
+
+    AtomicInteger visited = new AtomicInteger();
+    userDao.forEach(user -> visited.incrementAndGet());
+    assertEquals(1_000, visited.get());
+    assertEquals(1_000, StreamSupport.stream(userDao.spliterator(), true).count());
+  }
+
+  @Test
+  public void test_findPage_and_scan() {
+    Map<Integer, User> users = Users.named(0, 3_000, 3);
+    Dao<User> userDao = new UserDao(users);
+
+    List<User> page = userDao.findPage(10, 5);
+    assertEquals(5, page.size());
+    assertSame(users.get(30), page.get(0));
+    assertEquals(0, userDao.findPage(2_000, 5).size());
+    assertThrows(IllegalArgumentException.class, () -> userDao.findPage(-1, 5));
+
+    List<User> scanned = new ArrayList<>();
+    Slice<User> slice = userDao.scan(Integer.MIN_VALUE, 64);
+    scanned.addAll(slice.getContent());
+    while (slice.hasNext()) {
+      slice = userDao.scan(slice.getLastId(), 64);
+      scanned.addAll(slice.getContent());
+    }
+    assertEquals(userDao.findAll(), scanned);
+
+    Slice<User> tail = userDao.scan(2_995, 10);
+    assertEquals(1, tail.getContent().size());
+    assertEquals(2_997, tail.getLastId());
+    assertFalse(tail.hasNext());
+  }
+
+  /**
+   * Pages and scans read the id index, which follows inserts and deletes between calls
+   */
+  @Test
+  public void test_findPage_acrossWrites() {
+    checkPagingAcrossWrites(new UserDao(new HashMap<>()));
+    checkPagingAcrossWrites(new ConcurrentUserDao());
+  }
+
+  private static void checkPagingAcrossWrites(Dao<User> userDao) {
+    Users.save(userDao, 0, 1_000, 2);
+    for (int offset = 0; offset < 600; offset += 10) {
+      assertEquals(userDao.findAll().subList(Math.min(offset, userDao.findAll().size()),
+          Math.min(offset + 10, userDao.findAll().size())), userDao.findPage(offset, 10));
+      // Shift later positions both ways: one id before the page, one after it
+      userDao.save(offset % 7 == 0 ? -offset - 1 : offset * 2 + 1, new User("new" + offset));
+      userDao.delete(offset * 2 + 40);
+    }
+    List<User> paged = new ArrayList<>();
+    for (int offset = 0; offset < userDao.findAll().size(); offset += 7) {
+      paged.addAll(userDao.findPage(offset, 7));
+    }
+    assertEquals(userDao.findAll(), paged);
+    assertEquals(userDao.findAll().subList(5, 9), userDao.findPage(5, 4));
+    userDao.delete(-1);
+    assertEquals(userDao.findAll().subList(9, 13), userDao.findPage(9, 4));
+    List<User> scanned = new ArrayList<>();
+    for (Slice<User> slice = userDao.scan(Integer.MIN_VALUE, 7); ; slice = userDao.scan(slice.getLastId(), 7)) {
+      scanned.addAll(slice.getContent());
+      if (!slice.hasNext()) {
+        break;
+      }
+    }
+    assertEquals(userDao.findAll(), scanned);
+  }
+
+  /**
+   * A Dao that only implements findById and findAll still scans, keyed by position
+   */
+  @Test
+  public void test_defaultScan() {
+    List<User> users = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      users.add(new User("user" + i));
+    }
+    Dao<User> minimal = new Dao<User>() {
+      @Override
+      public User findById(int id) {
+        return users.get(id);
+      }
+
+      @Override
+      public List<User> findAll() {
+        return users;
+      }
+    };
+
+    Slice<User> first = minimal.scan(Integer.MIN_VALUE, 4);
+    assertEquals(users.subList(0, 4), first.getContent());
+    assertEquals(3, first.getLastId());
+    assertTrue(first.hasNext());
+    Slice<User> last = minimal.scan(7, 4);
+    assertEquals(users.subList(8, 10), last.getContent());
+    assertEquals(9, last.getLastId());
+    assertFalse(last.hasNext());
+    assertEquals(0, minimal.scan(Integer.MAX_VALUE, 4).getContent().size());
+  }
+
+  @Test
+  public void test_findByName() {
+    Map<Integer, User> users = new HashMap<>();
+    users.put(1, new User("Julie"));
+    users.put(2, new User("David"));
+    users.put(3, new User("Julian"));
+    users.put(4, new User("Julie"));
+    checkNameIndex(new UserDao(users));
+    checkNameIndex(new ConcurrentUserDao(users));
+  }
+
+  private static <D extends Dao<User> & UserNameLookup> void checkNameIndex(D userDao) {
+    assertEquals(2, userDao.findByName("Julie").size());
+    assertEquals(0, userDao.findByName("Eve").size());
+
+    List<User> prefixed = userDao.findByNamePrefix("Jul", 10);
+    assertEquals(3, prefixed.size());
+    assertEquals("Julian", prefixed.get(0).getName());
+    assertEquals(2, userDao.findByNamePrefix("Jul", 2).size());
+
+    userDao.update(4, new User("Eve"));
+    userDao.delete(3);
+    assertEquals(1, userDao.findByName("Julie").size());
+    assertEquals(1, userDao.findByName("Eve").size());
+    assertEquals(0, userDao.findByName("Julian").size());
+    assertEquals(1, userDao.findByNamePrefix("Jul", 10).size());
+    assertEquals(0, userDao.findByNamePrefix("Z", 10).size());
+    assertThrows(IllegalArgumentException.class, () -> userDao.findByNamePrefix("Jul", -1));
+
+    userDao.save(4, new User("Eve"));
+    userDao.save(4, new User("Julie"));
+    assertEquals(2, userDao.findByName("Julie").size());
+    assertEquals(0, userDao.findByName("Eve").size());
+  }
 }
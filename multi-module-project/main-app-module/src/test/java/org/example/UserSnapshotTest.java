@@ -0,0 +1,104 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dao.impl.ConcurrentUserDao;
+import org.example.dao.impl.UserDao;
+import org.example.dao.impl.UserSnapshotWriter;
+import org.example.entity.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Slf4j
+public class UserSnapshotTest {
+
+  @Test
+  public void test_roundTrip(@TempDir Path dir) throws IOException {
+    Map<Integer, User> users = new HashMap<>();
+    for (int id = -10; id < 300_000; id++) {
+      users.put(id, new User(id % 1_000 == 0 ? null : "user" + id));
+    }
+    users.put(7, new User("Zoë"));
+    long start = System.nanoTime();
+    UserDao original = new UserDao(users);
+    long built = System.nanoTime();
+
+    Path file = dir.resolve("users.snapshot");
+    original.writeSnapshot(file);
+    long written = System.nanoTime();
+    UserDao restored = UserDao.restore(file);
+    long read = System.nanoTime();
+    log.info("build {} ms, write {} ms, restore {} ms, {} bytes", (built - start) / 1_000_000,
+        (written - built) / 1_000_000, (read - written) / 1_000_000, Files.size(file));
+
+    assertEquals(users.size(), restored.findAll().size());
+    assertEquals("Zoë", restored.findById(7).getName());
+    assertEquals("user299999", restored.findById(299_999).getName());
+    assertNull(restored.findById(1_000).getName());
+    assertEquals("user-3", restored.findById(-3).getName());
+
+    Path concurrentFile = dir.resolve("concurrent.snapshot");
+    new ConcurrentUserDao(users).writeSnapshot(concurrentFile);
+    assertEquals(users.size(), ConcurrentUserDao.restore(concurrentFile).findAll().size());
+  }
+
+  @Test
+  public void test_detectsCorruption(@TempDir Path dir) throws IOException {
+    Map<Integer, User> users = Users.named(0, 50_000);
+    Path file = dir.resolve("users.snapshot");
+    new UserDao(users).writeSnapshot(file);
+
+    Path flipped = dir.resolve("flipped.snapshot");
+    byte[] bytes = Files.readAllBytes(file);
+    bytes[bytes.length / 2] ^= 0x40;
+    Files.write(flipped, bytes);
+    assertThrows(IOException.class, () -> UserDao.restore(flipped));
+
+    Path truncated = dir.resolve("truncated.snapshot");
+    Files.copy(file, truncated);
+    try (FileChannel channel = FileChannel.open(truncated, StandardOpenOption.WRITE)) {
+      channel.truncate(Files.size(file) - 100);
+    }
+    assertThrows(IOException.class, () -> UserDao.restore(truncated));
+  }
+
+  /**
+   * A write that fails halfway neither finishes the file nor replaces the previous snapshot
+   */
+  @Test
+  public void test_failedWriteKeepsPreviousSnapshot(@TempDir Path dir) throws IOException {
+    Map<Integer, User> users = Users.named(0, 20_000);
+    Path file = dir.resolve("users.snapshot");
+    UserDao userDao = new UserDao(users);
+    userDao.writeSnapshot(file);
+
+    StringBuilder longName = new StringBuilder();
+    while (longName.length() <= Short.MAX_VALUE) {
+      longName.append("xxxxxxxx");
+    }
+    userDao.save(15_000, new User(longName.toString()));
+    assertThrows(IllegalArgumentException.class, () -> userDao.writeSnapshot(file));
+    assertEquals(20_000, UserDao.restore(file).findAll().size());
+    assertFalse(Files.exists(dir.resolve("users.snapshot.tmp")));
+
+    Path direct = dir.resolve("direct.snapshot");
+    assertThrows(IllegalArgumentException.class, () -> {
+      try (UserSnapshotWriter writer = new UserSnapshotWriter(direct)) {
+        writer.write(1, new User("Julie"));
+        writer.write(2, new User(longName.toString()));
+      }
+    });
+    assertThrows(IOException.class, () -> UserDao.restore(direct));
+  }
+}
@@ -0,0 +1,39 @@
+package org.example;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.example.dao.Dao;
+import org.example.entity.User;
+
+/**
+ * Test users named {@code "user" + id}, shared by the DAO tests.
+ */
+final class Users {
+
+  private Users() {
+  }
+
+  /**
+   * Users for the ids {@code from, from + step, ...} below {@code to}.
+   */
+  static Map<Integer, User> named(int from, int to, int step) {
+    Map<Integer, User> users = new HashMap<>();
+    for (int id = from; id < to; id += step) {
+      users.put(id, new User("user" + id));
+    }
+    return users;
+  }
+
+  static Map<Integer, User> named(int from, int to) {
+    return named(from, to, 1);
+  }
+
+  /**
+   * Saves the users of {@link #named(int, int, int)} into {@code dao} in ascending id order.
+   */
+  static void save(Dao<User> dao, int from, int to, int step) {
+    for (int id = from; id < to; id += step) {
+      dao.save(id, new User("user" + id));
+    }
+  }
+}